@@ -0,0 +1,18 @@
+package cn.sleepybear.cacher;
+
+/**
+ * {@link CacherManager} 全局预算的单位
+ *
+ * @author sleepybear
+ * @date 2026/10/19 21:20
+ */
+public enum BudgetTypeEnum {
+    /**
+     * 缓存数量
+     */
+    ENTRIES,
+    /**
+     * 估算的堆内存字节数，参见 {@link Cacher#estimateMemory()}
+     */
+    BYTES,
+}
@@ -2,21 +2,59 @@ package cn.sleepybear.cacher;
 
 import cn.sleepybear.cacher.cache.CacheObject;
 import cn.sleepybear.cacher.cache.ExpireWayEnum;
+import cn.sleepybear.cacher.cache.RemovalCauseEnum;
+import cn.sleepybear.cacher.buffer.StripedRingBuffer;
+import cn.sleepybear.cacher.cache.ValueCompressor;
+import cn.sleepybear.cacher.event.CacheEvent;
+import cn.sleepybear.cacher.event.CacheEventPublisher;
+import cn.sleepybear.cacher.event.CacheEventTypeEnum;
+import cn.sleepybear.cacher.jfr.CacheEvictionEvent;
+import cn.sleepybear.cacher.jfr.CacheExpirationEvent;
+import cn.sleepybear.cacher.jfr.CacheLoadEvent;
+import cn.sleepybear.cacher.jfr.ExpireSweepEvent;
+import cn.sleepybear.cacher.loader.CacherBulkValueLoader;
 import cn.sleepybear.cacher.loader.CacherValueLoader;
 import cn.sleepybear.cacher.loader.ExpireAction;
 import cn.sleepybear.cacher.loader.ExpireTimeLoader;
+import cn.sleepybear.cacher.loader.TagLoader;
+import cn.sleepybear.cacher.memory.CacherMemory;
+import cn.sleepybear.cacher.memory.MemoryPressureMonitor;
+import cn.sleepybear.cacher.memory.MemoryReport;
+import cn.sleepybear.cacher.memory.SizeEstimator;
+import cn.sleepybear.cacher.stat.HotKey;
+import cn.sleepybear.cacher.stat.HotKeyTracker;
+import cn.sleepybear.cacher.trace.AccessTraceRecorder;
+import cn.sleepybear.cacher.trace.TraceRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * There is description
@@ -30,10 +68,36 @@ public class Cacher<K, V> implements Serializable {
     @Serial
     private static final long serialVersionUID = -8803248750867836882L;
 
+    /**
+     * 记录最近被淘汰的 key 的槽位数，也就是容量未命中统计覆盖的范围
+     */
+    public static final int EVICTED_KEY_SLOTS = 1024;
+
+    /**
+     * 内存压力淘汰的冷却时间，毫秒
+     */
+    public static final long MEMORY_PRESSURE_COOLDOWN = 5000L;
+
+    /**
+     * 容量淘汰时每淘汰一个缓存抽样的数量，以及每次至少抽样的数量
+     */
+    static final int EVICTION_SAMPLE_FACTOR = 5;
+    static final int EVICTION_SAMPLE_MIN = 64;
+
+    /**
+     * 估算内存时随机跳过的最大数量
+     */
+    static final int ESTIMATE_MAX_SKIP = 4096;
+
     private K nullKey;
 
     private final Map<K, CacheObject<V>> MAP;
 
+    /**
+     * 标签到 key 的二级索引，只有带标签的缓存才会进入索引
+     */
+    private final Map<Object, Set<K>> TAG_INDEX = new ConcurrentHashMap<>();
+
     private ScheduledExecutorService scheduledExecutorService;
 
     private ExpireWayEnum expireWayEnum;
@@ -58,8 +122,128 @@ public class Cacher<K, V> implements Serializable {
 
     private ExpireTimeLoader<K> expireTimeLoader;
 
+    /**
+     * 批量加载，预热时优先使用
+     */
+    private CacherBulkValueLoader<K, V> cacherBulkValueLoader;
+
+    /**
+     * 预热的并行度和每批 key 的数量
+     */
+    private int warmUpParallelism;
+    private int warmUpBatchSize;
+
     private ExpireAction<K, CacheObject<V>> expireAction;
 
+    /**
+     * load 结果的标签
+     */
+    private TagLoader<K> tagLoader;
+
+    /**
+     * 缓存值压缩器，为 null 则不压缩
+     */
+    private ValueCompressor<V> valueCompressor;
+
+    /**
+     * 热点 key 统计，为 null 则不统计
+     */
+    private HotKeyTracker<K> hotKeyTracker;
+
+    /**
+     * 访问轨迹记录，为 null 则不记录
+     */
+    private AccessTraceRecorder traceRecorder;
+
+    /**
+     * 读命中的访问记录缓冲，为 null 则在读路径上直接更新访问时间和次数
+     */
+    private StripedRingBuffer<CacheObject<V>> accessBuffer;
+    private final AtomicBoolean accessDrainScheduled = new AtomicBoolean(false);
+
+    /**
+     * 自适应过期清理每轮抽查的数量，0 表示使用全量扫描的 {@link #expire()}
+     */
+    private int adaptiveExpireSampleSize;
+    private long adaptiveExpireTimeBudget;
+    private long adaptiveExpireMinDelay;
+    private ExpireSweeper<K, V> expireSweeper;
+
+    /**
+     * 是否以软引用保存缓存对象
+     */
+    private boolean softValues;
+
+    /**
+     * 堆使用率超过该值时淘汰最冷的缓存，0 表示不监控
+     */
+    private double memoryPressureThreshold;
+    private MemoryPressureMonitor.Registration memoryPressureRegistration;
+    private volatile long lastMemoryPressureEviction;
+
+    /**
+     * 是否已有淘汰任务在执行，内存压力和容量超限共用
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    /**
+     * 容量淘汰抽样的游标，下一次从上次停下的位置继续
+     */
+    private Iterator<Map.Entry<K, CacheObject<V>>> evictionCursor;
+
+    /**
+     * 最大缓存数量，0 表示不限制；超出后在清理线程中批量淘汰最冷的缓存
+     */
+    private volatile long maximumSize;
+
+    /**
+     * 最近因容量被淘汰的 key 的哈希，直接映射、有损，用于统计增加容量后能多命中的次数
+     */
+    private volatile int[] evictedKeyHashes;
+
+    /**
+     * 外部共享的清理线程池，为 null 则使用自己创建的线程池；共享时关闭缓存只取消自己的任务
+     */
+    private ScheduledExecutorService sharedScheduler;
+    private ScheduledFuture<?> expireFuture;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder capacityMissCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * load 失败时过期缓存最多继续使用的时长，毫秒，0 表示不使用过期缓存
+     */
+    private long maxStaleness;
+
+    /**
+     * load 失败后重试的初始间隔与最大间隔，毫秒，每次失败间隔翻倍
+     */
+    private long reloadBackoffInitial;
+    private long reloadBackoffMax;
+
+    /**
+     * 正在使用过期缓存的 key 的重试状态，load 成功或缓存不再过期后删除
+     */
+    private final Map<K, ReloadBackoff> reloadBackoffs = new ConcurrentHashMap<>();
+
+    /**
+     * 内存估算使用的 key、value 大小估算
+     */
+    private SizeEstimator sizeEstimator = SizeEstimator.DEFAULT;
+
+    /**
+     * 注册到 JMX 的内存估算，为 null 则未注册
+     */
+    private CacherMemory cacherMemory;
+    private boolean jmxEnabled;
+
+    /**
+     * 缓存变更事件，没有订阅者时不创建事件
+     */
+    private CacheEventPublisher<K, V> eventPublisher;
+
     public Cacher(ExpireWayEnum expireWayEnum, boolean keepOldExpireWay, int corePoolSize, String scheduleName, long initialDelay, long delay, TimeUnit timeUnit, boolean fixRate, int initialCapacity, float loadFactor, K nullKey, boolean showExpireTimeLog, boolean showRemoveInfoLog, boolean showLoadInfoLog, CacherValueLoader<K, V> cacherValueLoader, ExpireTimeLoader<K> expireTimeLoader, ExpireAction<K, CacheObject<V>> expireAction) {
         this.expireWayEnum = expireWayEnum;
         this.keepOldExpireWay = keepOldExpireWay;
@@ -70,12 +254,48 @@ public class Cacher<K, V> implements Serializable {
         this.expireTimeLoader = expireTimeLoader;
         this.expireAction = expireAction;
         this.nullKey = nullKey;
+        this.warmUpParallelism = Runtime.getRuntime().availableProcessors();
+        this.warmUpBatchSize = 256;
+        this.eventPublisher = new CacheEventPublisher<>();
         MAP = new ConcurrentHashMap<>(initialCapacity, loadFactor);
         resetExpireSchedule(corePoolSize, scheduleName, initialDelay, delay, timeUnit, fixRate);
     }
 
     public Cacher(CacherBuilder<K, V> c) {
-        this(c.expireWayEnum, c.keepOldExpireWay, c.corePoolSize, c.scheduleName, c.initialDelay, c.delay, c.timeUnit, c.fixRate, c.initialCapacity, c.loadFactor, c.nullKey, c.showExpireTimeLog, c.showRemoveInfoLog, c.showLoadInfoLog, c.cacherValueLoader, c.expireTimeLoader, c.expireAction);
+        this.expireWayEnum = c.expireWayEnum;
+        this.keepOldExpireWay = c.keepOldExpireWay;
+        this.showExpireTimeLog = c.showExpireTimeLog;
+        this.showRemoveInfoLog = c.showRemoveInfoLog;
+        this.showLoadInfoLog = c.showLoadInfoLog;
+        this.cacherValueLoader = c.cacherValueLoader;
+        this.expireTimeLoader = c.expireTimeLoader;
+        this.expireAction = c.expireAction;
+        this.tagLoader = c.tagLoader;
+        this.cacherBulkValueLoader = c.cacherBulkValueLoader;
+        this.warmUpParallelism = c.warmUpParallelism;
+        this.warmUpBatchSize = c.warmUpBatchSize;
+        this.nullKey = c.nullKey;
+        this.valueCompressor = c.valueCompressor;
+        this.hotKeyTracker = c.hotKeyTracker;
+        this.traceRecorder = c.traceRecorder;
+        this.accessBuffer = c.bufferedAccess ? new StripedRingBuffer<>() : null;
+        this.adaptiveExpireSampleSize = c.adaptiveExpireSampleSize;
+        this.adaptiveExpireTimeBudget = c.adaptiveExpireTimeBudget;
+        this.adaptiveExpireMinDelay = c.adaptiveExpireMinDelay;
+        this.softValues = c.softValues;
+        this.memoryPressureThreshold = c.memoryPressureThreshold;
+        this.sharedScheduler = c.scheduler;
+        this.maxStaleness = c.maxStaleness;
+        this.reloadBackoffInitial = c.reloadBackoffInitial;
+        this.reloadBackoffMax = c.reloadBackoffMax;
+        this.eventPublisher = new CacheEventPublisher<>(c.eventExecutor == null ? ForkJoinPool.commonPool() : c.eventExecutor, c.eventBufferSize, c.eventOverflowPolicy);
+        this.jmxEnabled = c.jmxEnabled;
+        if (c.sizeEstimator != null) {
+            this.sizeEstimator = c.sizeEstimator;
+        }
+        MAP = new ConcurrentHashMap<>(c.initialCapacity, c.loadFactor);
+        resetExpireSchedule(c.corePoolSize, c.scheduleName, c.initialDelay, c.delay, c.timeUnit, c.fixRate);
+        setMaximumSize(c.maximumSize);
     }
 
     public void put(K key, V value) {
@@ -90,14 +310,46 @@ public class Cacher<K, V> implements Serializable {
     }
 
     public void put(K key, V value, Long expireTime, ExpireWayEnum expireWayEnum) {
-        put(key, new CacheObject<>(value, expireTime, expireWayEnum));
+        put(key, newCacheObject(value, expireTime, expireWayEnum));
+    }
+
+    /**
+     * 带标签的 put，可以通过 {@link #invalidateTag(Object)} 按标签批量删除
+     *
+     * @param key           key
+     * @param value         value
+     * @param expireTime    过期时间，毫秒
+     * @param expireWayEnum 过期策略
+     * @param tags          标签
+     */
+    public void put(K key, V value, Long expireTime, ExpireWayEnum expireWayEnum, Collection<?> tags) {
+        CacheObject<V> cacheObject = newCacheObject(value, expireTime, expireWayEnum);
+        cacheObject.setTags(tags);
+        put(key, cacheObject);
     }
 
     public void put(K key, CacheObject<V> cacheObject) {
         if (key == null) {
-            MAP.put(nullKey, cacheObject);
-        } else {
-            MAP.put(key, cacheObject);
+            key = nullKey;
+        }
+        tracePut(key);
+        putCacheObject(key, cacheObject);
+    }
+
+    /**
+     * 写入缓存并维护标签索引、发布事件，不记录访问轨迹，load 回填也使用
+     */
+    private void putCacheObject(K key, CacheObject<V> cacheObject) {
+        CacheObject<V> old = MAP.put(key, cacheObject);
+        if (cacheObject.hasTags()) {
+            indexTags(key, cacheObject.getTags());
+        }
+        if (old != null && old != cacheObject) {
+            unindexTags(key, old);
+        }
+        publishEvent(old == null ? CacheEventTypeEnum.PUT : CacheEventTypeEnum.UPDATE, key, cacheObject);
+        if (old == null) {
+            afterInsert();
         }
     }
 
@@ -109,13 +361,288 @@ public class Cacher<K, V> implements Serializable {
         set(key, value, expireTime, this.expireWayEnum);
     }
 
+    /**
+     * 更新缓存，不存在或已过期则新建，在一次原子操作中完成，不会走 loader
+     *
+     * @param key           key
+     * @param value         value
+     * @param expireTime    过期时间，毫秒，为 null 则保持原过期时间
+     * @param expireWayEnum 过期策略，为 null 则保持原过期策略
+     */
     public void set(K key, V value, Long expireTime, ExpireWayEnum expireWayEnum) {
-        CacheObject<V> cacheObject = getCacheObjectPure(key);
-        if (cacheObject == null) {
-            put(key, value, expireTime, expireWayEnum);
+        // 压缩在锁外完成，锁内只替换引用
+        byte[] compressed = compress(value);
+        CacheObject<V> cacheObject = newCacheObject(value, compressed, expireTime, expireWayEnum == null ? this.expireWayEnum : expireWayEnum);
+        doCompute(key, (k, live) -> {
+            if (live == null) {
+                return cacheObject;
+            }
+            live.setObj(value, compressed, expireTime, expireWayEnum);
+            return live;
+        });
+    }
+
+    /**
+     * 带标签的 set，已存在的缓存会替换为新的标签
+     *
+     * @param key           key
+     * @param value         value
+     * @param expireTime    过期时间，毫秒
+     * @param expireWayEnum 过期策略
+     * @param tags          标签
+     */
+    public void set(K key, V value, Long expireTime, ExpireWayEnum expireWayEnum, Collection<?> tags) {
+        Holder<Set<Object>> oldTags = new Holder<>();
+        byte[] compressed = compress(value);
+        CacheObject<V> cacheObject = newCacheObject(value, compressed, expireTime, expireWayEnum == null ? this.expireWayEnum : expireWayEnum);
+        cacheObject.setTags(tags);
+        doCompute(key, (k, live) -> {
+            if (live == null) {
+                return cacheObject;
+            }
+            oldTags.value = live.getTags();
+            live.setObj(value, compressed, expireTime, expireWayEnum);
+            live.setTags(tags);
+            return live;
+        });
+        if (oldTags.value != null) {
+            unindexTags(key == null ? nullKey : key, oldTags.value);
+        }
+    }
+
+    /**
+     * 不存在或已过期时写入，不会走 loader
+     *
+     * @param key   key
+     * @param value value
+     * @return 已存在的 value，不存在时返回 null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putIfAbsent(key, value, null);
+    }
+
+    public V putIfAbsent(K key, V value, Long expireTime) {
+        Holder<CacheObject<V>> previous = new Holder<>();
+        CacheObject<V> cacheObject = newCacheObject(value, expireTime, this.expireWayEnum);
+        doCompute(key, (k, live) -> {
+            if (live != null) {
+                previous.value = live;
+                return live;
+            }
+            return cacheObject;
+        });
+        return previous.value == null ? null : previous.value.getObjPure();
+    }
+
+    /**
+     * 不存在或已过期时用 mappingFunction 计算并写入，整个过程是原子的，不会走 loader<br/>
+     * mappingFunction 在 Map 的锁内执行，应当简短并且不能操作本缓存；
+     * 配置了压缩时为了不在锁内压缩，mappingFunction 在锁外执行，并发时可能被调用多次，只有一个结果会被写入
+     *
+     * @param key             key
+     * @param mappingFunction 计算 value，返回 null 则不写入
+     * @return 已存在或新计算的 value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return computeIfAbsent(key, mappingFunction, null);
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction, Long expireTime) {
+        CacheObject<V> result;
+        if (this.valueCompressor == null) {
+            result = doCompute(key, (k, live) -> {
+                if (live != null) {
+                    return live;
+                }
+                V value = mappingFunction.apply(k);
+                return value == null ? null : newCacheObject(value, expireTime, this.expireWayEnum);
+            });
         } else {
-            cacheObject.setObj(value, expireTime, expireWayEnum);
+            K k = key == null ? nullKey : key;
+            CacheObject<V> live = getLive(k);
+            if (live != null) {
+                return live.getObj();
+            }
+            V value = mappingFunction.apply(k);
+            if (value == null) {
+                return null;
+            }
+            CacheObject<V> cacheObject = newCacheObject(value, expireTime, this.expireWayEnum);
+            result = doCompute(k, (kk, current) -> current != null ? current : cacheObject);
+        }
+        return result == null ? null : result.getObj();
+    }
+
+    /**
+     * 原子地计算新的 value，已过期的视为不存在，不会走 loader<br/>
+     * 已存在时原地更新，保留创建时间并刷新更新时间；返回 null 则删除<br/>
+     * 配置了压缩时 remappingFunction 在锁外执行，期间缓存被修改则重新计算，可能被调用多次
+     *
+     * @param key               key
+     * @param remappingFunction 参数为 key 与当前 value（不存在时为 null）
+     * @return 新的 value
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return compute(key, remappingFunction, null);
+    }
+
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction, Long expireTime) {
+        CacheObject<V> result = doRemap(key, (k, live) -> remappingFunction.apply(k, live == null ? null : live.getObjPure()), expireTime);
+        return result == null ? null : result.getObjPure();
+    }
+
+    /**
+     * 不存在或已过期时写入 value，否则用 remappingFunction 合并，整个过程是原子的，不会走 loader<br/>
+     * 配置了压缩时 remappingFunction 在锁外执行，期间缓存被修改则重新合并，可能被调用多次
+     *
+     * @param key               key
+     * @param value             value
+     * @param remappingFunction 参数为当前 value 与传入的 value，返回 null 则删除
+     * @return 新的 value
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return merge(key, value, remappingFunction, null);
+    }
+
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction, Long expireTime) {
+        if (value == null) {
+            throw new IllegalArgumentException("value can not be null!");
         }
+        CacheObject<V> result = doRemap(key, (k, live) -> live == null ? value : remappingFunction.apply(live.getObjPure(), value), expireTime);
+        return result == null ? null : result.getObjPure();
+    }
+
+    /**
+     * compute 与 merge 的实现，没有压缩时直接在锁内计算；
+     * 有压缩时在锁外计算和压缩，锁内确认缓存没有被替换或更新后再写入，否则重试
+     *
+     * @param key        key
+     * @param fn         参数为 key 与未过期的缓存（不存在时为 null），返回新的 value，null 表示删除
+     * @param expireTime 过期时间，毫秒
+     * @return 计算后的缓存
+     */
+    private CacheObject<V> doRemap(K key, BiFunction<K, CacheObject<V>, V> fn, Long expireTime) {
+        if (this.valueCompressor == null) {
+            return doCompute(key, (k, live) -> updateOrCreate(live, fn.apply(k, live), null, expireTime));
+        }
+        K k = key == null ? nullKey : key;
+        while (true) {
+            CacheObject<V> expected = getLive(k);
+            int version = expected == null ? 0 : expected.getUpdateCount();
+            V value = fn.apply(k, expected);
+            byte[] compressed = compress(value);
+            Holder<Boolean> conflict = new Holder<>();
+            CacheObject<V> result = doCompute(k, (kk, live) -> {
+                if (live != expected || (live != null && live.getUpdateCount() != version)) {
+                    conflict.value = Boolean.TRUE;
+                    return live;
+                }
+                return updateOrCreate(live, value, compressed, expireTime);
+            });
+            if (conflict.value == null) {
+                return result;
+            }
+        }
+    }
+
+    private CacheObject<V> updateOrCreate(CacheObject<V> live, V value, byte[] compressed, Long expireTime) {
+        if (value == null) {
+            return null;
+        }
+        if (live == null) {
+            return newCacheObject(value, compressed, expireTime, this.expireWayEnum);
+        }
+        live.setObj(value, compressed, expireTime, null);
+        return live;
+    }
+
+    /**
+     * 未过期的缓存，不存在或已过期时返回 null，不会删除
+     */
+    private CacheObject<V> getLive(K key) {
+        CacheObject<V> cacheObject = MAP.get(key);
+        return cacheObject == null || isExpired(cacheObject) ? null : cacheObject;
+    }
+
+    /**
+     * 在锁外压缩 value，没有配置压缩或不满足压缩条件时返回 null
+     */
+    private byte[] compress(V value) {
+        ValueCompressor<V> compressor = this.valueCompressor;
+        return compressor == null ? null : compressor.compress(value);
+    }
+
+    /**
+     * 在一次 {@link ConcurrentHashMap#compute} 中完成读取与写入，已过期的缓存视为不存在<br/>
+     * 被过期、删除、替换的旧缓存在锁外维护标签索引并执行 expireAction；fn 原样返回存在的缓存时不发布 UPDATE 事件<br/>
+     * fn 在 Map 的锁内执行，只应替换引用或字段，压缩等耗时操作在调用前完成<br/>
+     * 新增或修改了缓存时在访问轨迹中记录一次 PUT
+     *
+     * @param key key
+     * @param fn  参数为 key 与未过期的缓存（不存在时为 null），返回 null 表示删除
+     * @return 计算后的缓存
+     */
+    private CacheObject<V> doCompute(K key, BiFunction<K, CacheObject<V>, CacheObject<V>> fn) {
+        return doCompute(key, fn, true);
+    }
+
+    /**
+     * @param trace 是否记录访问轨迹，预热等内部写入不记录
+     */
+    private CacheObject<V> doCompute(K key, BiFunction<K, CacheObject<V>, CacheObject<V>> fn, boolean trace) {
+        if (key == null) {
+            key = nullKey;
+        }
+        Holder<CacheObject<V>> expired = new Holder<>();
+        Holder<CacheObject<V>> previous = new Holder<>();
+        Holder<Boolean> updated = new Holder<>();
+        CacheObject<V> result = MAP.compute(key, (k, old) -> {
+            CacheObject<V> live = old;
+            if (old != null && isExpired(old)) {
+                expired.value = old;
+                live = null;
+            }
+            previous.value = live;
+            int version = live == null ? 0 : live.getUpdateCount();
+            CacheObject<V> computed = fn.apply(k, live);
+            updated.value = live != null && (computed != live || live.getUpdateCount() != version);
+            return computed;
+        });
+        CacheObject<V> old = expired.value;
+        if (old != null) {
+            unindexTags(key, old);
+            recordExpiration(key, old, false);
+            if (this.showRemoveInfoLog) {
+                log.info("[{}] expire: key = {}, value = {}", this.scheduleName, key, old.getObjPure());
+            }
+            if (expireAction != null) {
+                expireAction.expireAction(key, old, true);
+            }
+        }
+        old = previous.value;
+        if (old != null && old != result) {
+            unindexTags(key, old);
+            if (result == null && expireAction != null) {
+                expireAction.expireAction(key, old, false);
+            }
+        }
+        if (result != null && result.hasTags()) {
+            indexTags(key, result.getTags());
+        }
+        if (trace && result != null && (old == null || updated.value)) {
+            tracePut(key);
+        }
+        if (result == null) {
+            if (old != null) {
+                publishEvent(CacheEventTypeEnum.REMOVE, key, old);
+            }
+        } else if (old == null) {
+            publishEvent(CacheEventTypeEnum.PUT, key, result);
+            afterInsert();
+        } else if (updated.value) {
+            publishEvent(CacheEventTypeEnum.UPDATE, key, result);
+        }
+        return result;
     }
 
     public V get(K key) {
@@ -132,11 +659,45 @@ public class Cacher<K, V> implements Serializable {
     }
 
     public CacheObject<V> getCacheObject(K key) {
-        CacheObject<V> cacheObjectPure = getCacheObjectPure(key);
-        return cacheObjectPure == null ? null : cacheObjectPure.getCacheObject();
+        HotKeyTracker<K> tracker = this.hotKeyTracker;
+        if (tracker != null) {
+            tracker.record(key == null ? nullKey : key);
+        }
+        AccessTraceRecorder recorder = this.traceRecorder;
+        if (recorder != null) {
+            K k = key == null ? nullKey : key;
+            if (recorder.isSampled(k)) {
+                CacheObject<V> existing = k == null ? null : MAP.get(k);
+                recorder.record(existing != null && !isExpired(existing) ? TraceRecord.GET_HIT : TraceRecord.GET_MISS, k);
+            }
+        }
+        CacheObject<V> cacheObjectPure = getCacheObjectPure(key, true);
+        if (cacheObjectPure == null) {
+            return null;
+        }
+        if (this.maxStaleness > 0 && isExpired(cacheObjectPure)) {
+            // 返回的是过期缓存，不记录访问，否则按访问过期时会重新变为未过期，不再重试 loader
+            return cacheObjectPure;
+        }
+        StripedRingBuffer<CacheObject<V>> buffer = this.accessBuffer;
+        if (buffer == null) {
+            return cacheObjectPure.getCacheObject();
+        }
+        // 只写入缓冲区，不写共享的访问时间和计数，缓冲区满时丢弃本次访问，交给清理线程回放
+        if (buffer.offer(cacheObjectPure) == StripedRingBuffer.FULL) {
+            scheduleAccessDrain(buffer);
+        }
+        return cacheObjectPure;
     }
 
     public CacheObject<V> getCacheObjectPure(K key) {
+        return getCacheObjectPure(key, false);
+    }
+
+    /**
+     * @param recordStats 是否计入命中、未命中统计，只有 get 计入，清理等内部调用不计入
+     */
+    private CacheObject<V> getCacheObjectPure(K key, boolean recordStats) {
         if (key == null && this.nullKey != null) {
             // 如果允许 key 为 null 那么使用默认的 nullKey
             key = nullKey;
@@ -146,20 +707,38 @@ public class Cacher<K, V> implements Serializable {
         // 判断 value 是否存在
         if (cacheObject != null) {
             // value 存在，则判断是否过期
-            boolean expire = cacheObject.isExpire(this.expireWayEnum, this.keepOldExpireWay);
+            boolean expire = isExpired(cacheObject);
+            StripedRingBuffer<CacheObject<V>> buffer = this.accessBuffer;
+            if (expire && buffer != null && effectiveExpireWay(cacheObject) == ExpireWayEnum.AFTER_ACCESS) {
+                // 访问时间可能还在缓冲区中，等待回放完成后再判断一次
+                drainAccessBuffer(buffer, true);
+                expire = isExpired(cacheObject);
+            }
             if (!expire) {
                 // 如果没有过期，那么直接返回
+                if (recordStats) {
+                    hitCount.increment();
+                }
                 return cacheObject;
             }
         }
         // 下面则是走 load 过程，要么是 value 不存在，要么是过期了
+        if (recordStats) {
+            recordMiss(key);
+        }
+
+        if (cacheObject != null && isServableStale(cacheObject)) {
+            // 先 load，成功后再替换，失败则继续使用过期缓存
+            return reloadOrServeStale(key, cacheObject);
+        }
 
         if (cacheObject != null) {
             // 如果 value 存在，那么就一定是过期的，直接删除就行了
-            removeReturnCacheObject(key, true);
+            removeCacheObject(key, true, false);
+            recordExpiration(key, cacheObject, false);
             // 打印日志
             if (this.showRemoveInfoLog) {
-                log.info("[{}] expire: key = {}, value = {}", this.scheduleName, key, cacheObject.getObjPure().toString());
+                log.info("[{}] expire: key = {}, value = {}", this.scheduleName, key, cacheObject.getObjPure());
             }
         }
 
@@ -169,52 +748,558 @@ public class Cacher<K, V> implements Serializable {
             // 如果 load value 为空，那么直接返回就行了
             return null;
         }
-        // 回填到 MAP
-        put(key, load);
-        return load;
+        // 回填到 MAP，load 回填不是调用方的写入，轨迹中只记录未命中
+        putCacheObject(key, load);
+        return load;
+    }
+
+    public void resetExpireSchedule() {
+        resetExpireSchedule(this.corePoolSize, this.scheduleName, this.initialDelay, this.delay, this.timeUnit, this.fixRate);
+    }
+
+    public void resetExpireSchedule(int corePoolSize, String scheduleName, long initialDelay, long delay, TimeUnit timeUnit, boolean fixRate) {
+        this.corePoolSize = corePoolSize;
+        this.scheduleName = scheduleName;
+        this.initialDelay = initialDelay;
+        this.delay = delay;
+        this.timeUnit = timeUnit;
+        this.fixRate = fixRate;
+        cancelExpireSchedule(true);
+        if (sharedScheduler != null) {
+            scheduledExecutorService = sharedScheduler;
+        } else {
+            scheduledExecutorService = new ScheduledThreadPoolExecutor(corePoolSize, r -> new Thread(r, scheduleName));
+        }
+        if (hotKeyTracker != null) {
+            hotKeyTracker.setDrainExecutor(scheduledExecutorService);
+        }
+        if (traceRecorder != null) {
+            traceRecorder.setDrainExecutor(scheduledExecutorService);
+        }
+        if (adaptiveExpireSampleSize > 0) {
+            // 自适应清理自行决定下一次清理的时间
+            expireSweeper = new ExpireSweeper<>(this, adaptiveExpireSampleSize, adaptiveExpireTimeBudget, 0.25, adaptiveExpireMinDelay, timeUnit.toMillis(delay));
+            expireSweeper.start(scheduledExecutorService, initialDelay, timeUnit);
+        } else if (fixRate) {
+            expireFuture = scheduledExecutorService.scheduleAtFixedRate(this::expire, initialDelay, delay, timeUnit);
+        } else {
+            expireFuture = scheduledExecutorService.scheduleWithFixedDelay(this::expire, initialDelay, delay, timeUnit);
+        }
+        acquireResources();
+    }
+
+    public void shutdownExpireSchedule() {
+        cancelExpireSchedule(false);
+        releaseResources();
+    }
+
+    public void shutdownExpireScheduleNow() {
+        cancelExpireSchedule(true);
+        releaseResources();
+    }
+
+    /**
+     * 停止清理任务，自己创建的线程池直接关闭，共享的线程池只取消自己的任务
+     */
+    private void cancelExpireSchedule(boolean now) {
+        ExpireSweeper<K, V> sweeper = this.expireSweeper;
+        if (sweeper != null) {
+            sweeper.stop();
+        }
+        ScheduledFuture<?> future = this.expireFuture;
+        if (future != null) {
+            future.cancel(now);
+            this.expireFuture = null;
+        }
+        ScheduledExecutorService executor = this.scheduledExecutorService;
+        if (executor != null && executor != sharedScheduler) {
+            if (now) {
+                executor.shutdownNow();
+            } else {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 注册内存压力监听和 JMX、开放事件订阅，关闭清理任务时由 {@link #releaseResources()} 释放，重置清理任务时重新获取
+     */
+    private void acquireResources() {
+        if (this.memoryPressureThreshold > 0 && this.memoryPressureRegistration == null) {
+            this.memoryPressureRegistration = MemoryPressureMonitor.getInstance().register(this.memoryPressureThreshold, this::onMemoryPressure);
+        }
+        if (this.jmxEnabled && this.cacherMemory == null) {
+            CacherMemory memory = new CacherMemory(this.scheduleName, this::estimateMemory);
+            if (memory.register()) {
+                this.cacherMemory = memory;
+            }
+        }
+        if (this.eventPublisher.isClosed()) {
+            this.eventPublisher.reopen();
+        }
+    }
+
+    private void releaseResources() {
+        MemoryPressureMonitor.Registration registration = this.memoryPressureRegistration;
+        if (registration != null) {
+            this.memoryPressureRegistration = null;
+            MemoryPressureMonitor.getInstance().unregister(registration);
+        }
+        CacherMemory memory = this.cacherMemory;
+        if (memory != null) {
+            this.cacherMemory = null;
+            memory.unregister();
+        }
+        this.eventPublisher.close();
+    }
+
+    public void expire() {
+        if (this.showExpireTimeLog) {
+            log.info("[" + this.scheduleName + "] begin clear expired...");
+        }
+
+        drainBuffers();
+
+        ExpireSweepEvent event = new ExpireSweepEvent();
+        event.begin();
+        long scanned = 0;
+        long removed = 0;
+        for (K key : MAP.keySet()) {
+            CacheObject<V> cacheObject = MAP.get(key);
+            scanned++;
+            getCacheObjectPure(key);
+            // 过期后被重新 load 的不算删除
+            if (cacheObject != null && isExpired(cacheObject) && !MAP.containsKey(key)) {
+                removed++;
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.cacheName = this.scheduleName;
+            event.mode = "FULL";
+            event.scanned = scanned;
+            event.removed = removed;
+            event.commit();
+        }
+    }
+
+    /**
+     * 增量清理一次过期缓存，只删除不 load，需要在 {@link CacherBuilder#adaptiveExpire()} 中开启
+     *
+     * @return 本次删除的数量，未开启自适应清理时返回 -1
+     */
+    public long expireIncrementally() {
+        ExpireSweeper<K, V> sweeper = this.expireSweeper;
+        if (sweeper == null) {
+            return -1;
+        }
+        drainBuffers();
+        return sweeper.sweep();
+    }
+
+    /**
+     * 汇总读路径上的缓冲数据
+     */
+    void drainBuffers() {
+        StripedRingBuffer<CacheObject<V>> buffer = this.accessBuffer;
+        if (buffer != null) {
+            drainAccessBuffer(buffer);
+        }
+        HotKeyTracker<K> tracker = this.hotKeyTracker;
+        if (tracker != null) {
+            tracker.drain();
+        }
+        AccessTraceRecorder recorder = this.traceRecorder;
+        if (recorder != null) {
+            recorder.drain();
+        }
+        if (!reloadBackoffs.isEmpty()) {
+            // 已被删除、已重新写入的 key 不再需要重试状态，正在 load 的由 load 的线程清理
+            reloadBackoffs.entrySet().removeIf(e -> {
+                if (e.getValue().loading()) {
+                    return false;
+                }
+                CacheObject<V> cacheObject = MAP.get(e.getKey());
+                return cacheObject == null || !isExpired(cacheObject);
+            });
+        }
+    }
+
+    /**
+     * 过期缓存是否还能在 load 失败时继续使用：开启了 {@link CacherBuilder#serveStaleOnError(long)}，
+     * 有 loader，没有被 GC 回收，并且过期不超过 maxStaleness
+     */
+    private boolean isServableStale(CacheObject<V> cacheObject) {
+        if (this.maxStaleness <= 0 || this.cacherValueLoader == null || cacheObject.isCollected()) {
+            return false;
+        }
+        Long expireAt = cacheObject.getExpireAt(effectiveExpireWay(cacheObject));
+        return expireAt != null && System.currentTimeMillis() < expireAt + this.maxStaleness;
+    }
+
+    /**
+     * 重新 load 过期的缓存，成功则替换，load 为空则删除；load 抛出异常时返回过期缓存，并按指数退避推迟该 key 的下一次重试，
+     * 退避期间以及其他线程正在 load 时的读取直接返回过期缓存，不再调用 loader<br/>
+     * 只有缓存仍是该过期对象时才替换，load 期间被其他线程写入或删除的以其为准
+     */
+    private CacheObject<V> reloadOrServeStale(K key, CacheObject<V> stale) {
+        long now = System.currentTimeMillis();
+        Holder<Boolean> acquired = new Holder<>();
+        reloadBackoffs.compute(key, (k, old) -> {
+            if (old != null && (old.loading() || now < old.nextAttemptTime())) {
+                return old;
+            }
+            acquired.value = Boolean.TRUE;
+            return new ReloadBackoff(old == null ? 0 : old.failures(), old == null ? now : old.nextAttemptTime(), true);
+        });
+        if (acquired.value == null) {
+            return stale;
+        }
+        CacheObject<V> load;
+        try {
+            load = load(key);
+        } catch (RuntimeException e) {
+            long failedAt = System.currentTimeMillis();
+            ReloadBackoff next = reloadBackoffs.compute(key, (k, old) -> {
+                int failures = (old == null ? 0 : old.failures()) + 1;
+                return new ReloadBackoff(failures, failedAt + reloadBackoffDelay(failures), false);
+            });
+            log.warn("[{}] reload failed, serve stale value: key = {}, failures = {}, next attempt after {}ms", this.scheduleName, key, next.failures(), next.nextAttemptTime() - failedAt, e);
+            return stale;
+        } finally {
+            // 成功后不再需要重试状态；失败时上面已经记录了新的退避
+            reloadBackoffs.computeIfPresent(key, (k, old) -> old.loading() ? null : old);
+        }
+        if (load == null) {
+            if (removeIfSame(key, stale)) {
+                expireStale(key, stale);
+            }
+            return null;
+        }
+        // 按引用比较，值相同的并发写入也不能被覆盖
+        boolean[] replaced = new boolean[1];
+        MAP.computeIfPresent(key, (k, v) -> {
+            if (v != stale) {
+                return v;
+            }
+            replaced[0] = true;
+            return load;
+        });
+        if (!replaced[0]) {
+            // load 期间已被其他线程写入或删除
+            CacheObject<V> current = MAP.get(key);
+            return current == null || isExpired(current) ? load : current;
+        }
+        unindexTags(key, stale);
+        expireStale(key, stale);
+        if (load.hasTags()) {
+            indexTags(key, load.getTags());
+        }
+        publishEvent(CacheEventTypeEnum.PUT, key, load);
+        return load;
+    }
+
+    private void tracePut(K key) {
+        AccessTraceRecorder recorder = this.traceRecorder;
+        if (recorder != null && recorder.isSampled(key)) {
+            recorder.record(TraceRecord.PUT, key);
+        }
+    }
+
+    private void expireStale(K key, CacheObject<V> stale) {
+        recordExpiration(key, stale, false);
+        if (this.showRemoveInfoLog) {
+            log.info("[{}] expire: key = {}, value = {}", this.scheduleName, key, stale.getObjPure());
+        }
+        if (expireAction != null) {
+            expireAction.expireAction(key, stale, true);
+        }
+    }
+
+    private long reloadBackoffDelay(int failures) {
+        int shift = Math.min(failures - 1, 30);
+        long delay = this.reloadBackoffInitial << shift;
+        return delay <= 0 || delay > this.reloadBackoffMax ? this.reloadBackoffMax : delay;
+    }
+
+    /**
+     * 把访问记录的回放交给清理线程池，同一时刻最多提交一个回放任务
+     */
+    private void scheduleAccessDrain(StripedRingBuffer<CacheObject<V>> buffer) {
+        if (!accessDrainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduledExecutorService.execute(() -> {
+                accessDrainScheduled.set(false);
+                drainAccessBuffer(buffer);
+            });
+        } catch (RuntimeException e) {
+            accessDrainScheduled.set(false);
+        }
+    }
+
+    /**
+     * 把缓冲的访问记录回放到缓存对象上，同一批使用同一个时间
+     */
+    private static <V> void drainAccessBuffer(StripedRingBuffer<CacheObject<V>> buffer) {
+        drainAccessBuffer(buffer, false);
+    }
+
+    /**
+     * @param wait 已有其他线程在回放时是否等待其结束，需要依据访问记录做判断时使用
+     */
+    private static <V> void drainAccessBuffer(StripedRingBuffer<CacheObject<V>> buffer, boolean wait) {
+        long now = System.currentTimeMillis();
+        Consumer<CacheObject<V>> consumer = cacheObject -> cacheObject.recordAccess(now);
+        if (wait) {
+            buffer.drain(consumer);
+        } else {
+            buffer.tryDrain(consumer);
+        }
+    }
+
+    /**
+     * 若缓存仍是该对象并且已经过期，则删除，不走 loader
+     *
+     * @param key         key
+     * @param cacheObject 缓存对象
+     * @return 是否删除
+     */
+    boolean removeIfExpired(K key, CacheObject<V> cacheObject) {
+        if (!isExpired(cacheObject) || isServableStale(cacheObject) || !removeIfSame(key, cacheObject)) {
+            return false;
+        }
+        recordExpiration(key, cacheObject, true);
+        if (this.showRemoveInfoLog) {
+            log.info("[{}] expire: key = {}, value = {}", this.scheduleName, key, cacheObject.getObjPure());
+        }
+        if (expireAction != null) {
+            expireAction.expireAction(key, cacheObject, true);
+        }
+        return true;
+    }
+
+    /**
+     * 若缓存仍是该对象则删除，并维护标签索引，不执行 expireAction
+     *
+     * @param key         key
+     * @param cacheObject 缓存对象
+     * @return 是否删除
+     */
+    private boolean removeIfSame(K key, CacheObject<V> cacheObject) {
+        boolean[] removed = new boolean[1];
+        MAP.computeIfPresent(key, (k, v) -> {
+            if (v != cacheObject) {
+                return v;
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            unindexTags(key, cacheObject);
+        }
+        return removed[0];
+    }
+
+    /**
+     * 是否过期，软引用已被回收的也视为过期
+     */
+    private boolean isExpired(CacheObject<V> cacheObject) {
+        return cacheObject.isExpire(this.expireWayEnum, this.keepOldExpireWay) || cacheObject.isCollected();
+    }
+
+    /**
+     * 判断过期时实际使用的过期策略，与 {@link CacheObject#isExpire(ExpireWayEnum, boolean)} 一致
+     */
+    private ExpireWayEnum effectiveExpireWay(CacheObject<V> cacheObject) {
+        return this.keepOldExpireWay || this.expireWayEnum == null ? cacheObject.getExpireWayEnum() : this.expireWayEnum;
+    }
+
+    private CacheObject<V> newCacheObject(V value, Long expireTime, ExpireWayEnum expireWayEnum) {
+        return new CacheObject<>(value, expireTime, expireWayEnum, this.valueCompressor, this.softValues);
+    }
+
+    private CacheObject<V> newCacheObject(V value, byte[] compressed, Long expireTime, ExpireWayEnum expireWayEnum) {
+        return new CacheObject<>(value, compressed, expireTime, expireWayEnum, this.valueCompressor, this.softValues);
+    }
+
+    /**
+     * 淘汰最冷的 count 个缓存，最后访问时间越早越冷，相同时访问次数越少越冷
+     *
+     * @param count 数量
+     * @return 实际淘汰的数量
+     */
+    public int evictColdest(int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        ColdestCandidates<K, V> coldest = new ColdestCandidates<>(count);
+        drainBeforeEviction();
+        for (Map.Entry<K, CacheObject<V>> entry : MAP.entrySet()) {
+            coldest.offer(entry);
+        }
+        int evicted = evictCandidates(coldest);
+        if (this.showRemoveInfoLog) {
+            log.info("[{}] evict coldest: expect = {}, evicted = {}", this.scheduleName, count, evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * 容量淘汰，从上次停下的位置继续抽样约 count * {@link #EVICTION_SAMPLE_FACTOR} + {@link #EVICTION_SAMPLE_MIN} 个缓存，
+     * 淘汰其中最冷的 count 个；近似的 LRU，每次只扫描一段，不会在共享的清理线程中全量扫描<br/>
+     * 只在淘汰任务中调用，同一时刻只有一个线程访问 evictionCursor
+     *
+     * @param count 数量
+     * @return 实际淘汰的数量
+     */
+    private int evictSampled(int count) {
+        ColdestCandidates<K, V> coldest = new ColdestCandidates<>(count);
+        drainBeforeEviction();
+        long sampleSize = Math.min(MAP.size(), count * (long) EVICTION_SAMPLE_FACTOR + EVICTION_SAMPLE_MIN);
+        Iterator<Map.Entry<K, CacheObject<V>>> cursor = this.evictionCursor;
+        boolean restarted = false;
+        for (long sampled = 0; sampled < sampleSize; sampled++) {
+            if (cursor == null || !cursor.hasNext()) {
+                if (restarted) {
+                    // 整个 Map 都已经扫过一遍
+                    break;
+                }
+                cursor = MAP.entrySet().iterator();
+                restarted = true;
+                if (!cursor.hasNext()) {
+                    break;
+                }
+            }
+            coldest.offer(cursor.next());
+        }
+        this.evictionCursor = cursor;
+        int evicted = evictCandidates(coldest);
+        if (this.showRemoveInfoLog) {
+            log.info("[{}] evict sampled: expect = {}, evicted = {}", this.scheduleName, count, evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * 先回放缓冲的访问，否则最近被读过的缓存会按旧的访问时间排序
+     */
+    private void drainBeforeEviction() {
+        StripedRingBuffer<CacheObject<V>> buffer = this.accessBuffer;
+        if (buffer != null) {
+            drainAccessBuffer(buffer, true);
+        }
+    }
+
+    private int evictCandidates(ColdestCandidates<K, V> coldest) {
+        int evicted = 0;
+        for (EvictionCandidate<K, V> candidate : coldest.candidates) {
+            if (!removeIfSame(candidate.key(), candidate.cacheObject())) {
+                continue;
+            }
+            evicted++;
+            rememberEvictedKey(candidate.key());
+            recordEviction(candidate.key(), candidate.cacheObject(), RemovalCauseEnum.EVICTED);
+            if (expireAction != null) {
+                expireAction.expireAction(candidate.key(), candidate.cacheObject(), true);
+            }
+        }
+        evictionCount.add(evicted);
+        return evicted;
     }
 
-    public void resetExpireSchedule() {
-        resetExpireSchedule(this.corePoolSize, this.scheduleName, this.initialDelay, this.delay, this.timeUnit, this.fixRate);
+    /**
+     * 新增缓存后检查容量，超出时在清理线程中批量淘汰，同一时刻只有一个淘汰任务，期间的新增合并到同一批
+     */
+    private void afterInsert() {
+        long max = this.maximumSize;
+        if (max > 0 && MAP.size() > max) {
+            scheduleCapacityEviction();
+        }
     }
 
-    public void resetExpireSchedule(int corePoolSize, String scheduleName, long initialDelay, long delay, TimeUnit timeUnit, boolean fixRate) {
-        this.corePoolSize = corePoolSize;
-        this.scheduleName = scheduleName;
-        this.initialDelay = initialDelay;
-        this.delay = delay;
-        this.timeUnit = timeUnit;
-        this.fixRate = fixRate;
-        if (scheduledExecutorService != null) {
-            scheduledExecutorService.shutdownNow();
+    private void scheduleCapacityEviction() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
         }
-        scheduledExecutorService = new ScheduledThreadPoolExecutor(corePoolSize, r -> new Thread(r, scheduleName));
-        if (fixRate) {
-            scheduledExecutorService.scheduleAtFixedRate(this::expire, initialDelay, delay, timeUnit);
-        } else {
-            scheduledExecutorService.scheduleWithFixedDelay(this::expire, initialDelay, delay, timeUnit);
+        try {
+            scheduledExecutorService.execute(() -> {
+                try {
+                    long max = this.maximumSize;
+                    long excess = MAP.size() - max;
+                    if (max > 0 && excess > 0) {
+                        evictSampled((int) Math.min(Integer.MAX_VALUE, excess));
+                    }
+                } finally {
+                    evicting.set(false);
+                }
+                // 淘汰期间又有新增超出容量
+                afterInsert();
+            });
+        } catch (RuntimeException e) {
+            evicting.set(false);
         }
     }
 
-    public void shutdownExpireSchedule() {
-        if (scheduledExecutorService != null) {
-            scheduledExecutorService.shutdown();
+    private void rememberEvictedKey(K key) {
+        int[] hashes = this.evictedKeyHashes;
+        if (hashes != null) {
+            int h = evictedKeyHash(key);
+            hashes[h & (hashes.length - 1)] = h;
         }
     }
 
-    public void shutdownExpireScheduleNow() {
-        if (scheduledExecutorService != null) {
-            scheduledExecutorService.shutdownNow();
+    private void recordMiss(K key) {
+        missCount.increment();
+        int[] hashes = this.evictedKeyHashes;
+        if (hashes != null) {
+            int h = evictedKeyHash(key);
+            int i = h & (hashes.length - 1);
+            if (hashes[i] == h) {
+                hashes[i] = 0;
+                capacityMissCount.increment();
+            }
         }
     }
 
-    public void expire() {
-        if (this.showExpireTimeLog) {
-            log.info("[" + this.scheduleName + "] begin clear expired...");
-        }
+    private static int evictedKeyHash(Object key) {
+        int h = (key == null ? 0 : key.hashCode()) * 0x9E3779B9;
+        h ^= h >>> 16;
+        // 0 表示空槽位
+        return h == 0 ? 1 : h;
+    }
 
-        for (K key : MAP.keySet()) {
-            getCacheObjectPure(key);
+    /**
+     * 堆使用率超过阈值时，淘汰最冷的缓存，淘汰在清理线程中执行<br/>
+     * 假设堆使用量与缓存数量成正比，把缓存数量缩到 size * threshold / pressure；
+     * 淘汰后 {@link #MEMORY_PRESSURE_COOLDOWN} 毫秒内不再淘汰，等待 GC 回收后的使用率反映淘汰的效果，避免每次 GC 通知都淘汰一轮
+     *
+     * @param pressure 当前堆使用率
+     */
+    void onMemoryPressure(double pressure) {
+        long now = System.currentTimeMillis();
+        if (now - this.lastMemoryPressureEviction < MEMORY_PRESSURE_COOLDOWN) {
+            return;
+        }
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        this.lastMemoryPressureEviction = now;
+        int size = MAP.size();
+        long target = (long) Math.floor(size * memoryPressureThreshold / pressure);
+        int count = (int) Math.max(1, size - target);
+        try {
+            scheduledExecutorService.execute(() -> {
+                try {
+                    int evicted = evictColdest(count);
+                    log.warn("[{}] memory pressure {}, evicted {} coldest entries", this.scheduleName, String.format("%.2f", pressure), evicted);
+                } finally {
+                    evicting.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            evicting.set(false);
         }
     }
 
@@ -240,7 +1325,17 @@ public class Cacher<K, V> implements Serializable {
      * @return CacheObject
      */
     public CacheObject<V> removeReturnCacheObject(K key, boolean useExpireAction) {
+        return removeCacheObject(key, useExpireAction, true);
+    }
+
+    private CacheObject<V> removeCacheObject(K key, boolean useExpireAction, boolean publishRemove) {
         CacheObject<V> removed = MAP.remove(key);
+        if (removed != null && publishRemove) {
+            publishEvent(CacheEventTypeEnum.REMOVE, key, removed);
+        }
+        if (removed != null) {
+            unindexTags(key, removed);
+        }
         if (removed != null && expireAction != null) {
             // 当缓存删除的时候，执行的操作
             expireAction.expireAction(key, removed, useExpireAction);
@@ -252,7 +1347,94 @@ public class Cacher<K, V> implements Serializable {
         if (this.cacherValueLoader == null) {
             return null;
         }
-        V value = cacherValueLoader.load(key);
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.begin();
+        V value = null;
+        String outcome = "FAILURE";
+        try {
+            value = cacherValueLoader.load(key);
+            outcome = value == null ? "EMPTY" : "SUCCESS";
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.cacheName = this.scheduleName;
+                event.keyType = keyType(key);
+                event.keyCount = 1;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+        return newLoadedCacheObject(key, value);
+    }
+
+    private Map<K, V> loadAll(List<K> keys) {
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.begin();
+        Map<K, V> values = null;
+        String outcome = "FAILURE";
+        try {
+            values = this.cacherBulkValueLoader.loadAll(keys);
+            outcome = values == null || values.isEmpty() ? "EMPTY" : "SUCCESS";
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.cacheName = this.scheduleName;
+                event.keyType = keys.isEmpty() ? null : keyType(keys.get(0));
+                event.keyCount = keys.size();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * JFR 过期事件，未开启记录时几乎没有开销
+     */
+    private void recordExpiration(K key, CacheObject<V> cacheObject, boolean bySweep) {
+        publishEvent(CacheEventTypeEnum.EXPIRE, key, cacheObject);
+        CacheExpirationEvent event = new CacheExpirationEvent();
+        if (event.isEnabled()) {
+            event.cacheName = this.scheduleName;
+            event.keyType = keyType(key);
+            event.cause = (cacheObject.isCollected() ? RemovalCauseEnum.COLLECTED : RemovalCauseEnum.EXPIRED).name();
+            event.bySweep = bySweep;
+            event.commit();
+        }
+    }
+
+    /**
+     * JFR 淘汰事件，未开启记录时几乎没有开销
+     */
+    private void recordEviction(K key, CacheObject<V> cacheObject, RemovalCauseEnum cause) {
+        publishEvent(cause == RemovalCauseEnum.INVALIDATED ? CacheEventTypeEnum.REMOVE : CacheEventTypeEnum.EVICT, key, cacheObject);
+        CacheEvictionEvent event = new CacheEvictionEvent();
+        if (event.isEnabled()) {
+            event.cacheName = this.scheduleName;
+            event.keyType = keyType(key);
+            event.cause = cause.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * 发布缓存变更事件，没有订阅者时不创建事件
+     */
+    private void publishEvent(CacheEventTypeEnum type, K key, CacheObject<V> cacheObject) {
+        CacheEventPublisher<K, V> publisher = this.eventPublisher;
+        if (!publisher.hasSubscribers()) {
+            return;
+        }
+        // 压缩保存的 value 延迟到订阅方读取时才解压，写入线程不解压
+        Supplier<V> value = cacheObject == null ? () -> null : cacheObject.getObjSnapshot();
+        publisher.publish(new CacheEvent<>(this.scheduleName, type, key, value, System.currentTimeMillis()));
+    }
+
+    private static String keyType(Object key) {
+        return key == null ? "null" : key.getClass().getName();
+    }
+
+    private CacheObject<V> newLoadedCacheObject(K key, V value) {
         if (value == null) {
             if (this.showLoadInfoLog) {
                 log.info("[{}] load no value, key = {}", this.scheduleName, key);
@@ -260,10 +1442,253 @@ public class Cacher<K, V> implements Serializable {
             return null;
         }
         Long expireTime = expireTimeLoader == null ? null : expireTimeLoader.getLoadExpireTime(key);
+        Collection<?> tags = tagLoader == null ? null : tagLoader.getLoadTags(key);
         if (this.showLoadInfoLog) {
             log.info("[{}] load key = {}, expireTime = {}, value = {}", this.scheduleName, key, expireTime, value);
         }
-        return new CacheObject<>(value, expireTime, this.expireWayEnum);
+        CacheObject<V> cacheObject = newCacheObject(value, expireTime, this.expireWayEnum);
+        cacheObject.setTags(tags);
+        return cacheObject;
+    }
+
+    /**
+     * 删除带有该标签的所有缓存，耗时只与该标签下的缓存数量有关
+     *
+     * @param tag 标签
+     * @return 删除的数量
+     */
+    public int invalidateTag(Object tag) {
+        Set<K> keys = TAG_INDEX.remove(tag);
+        if (keys == null) {
+            return 0;
+        }
+        int count = 0;
+        for (K key : keys) {
+            CacheObject<V> cacheObject = MAP.get(key);
+            if (cacheObject == null || !cacheObject.hasTag(tag)) {
+                continue;
+            }
+            if (!removeIfSame(key, cacheObject)) {
+                continue;
+            }
+            count++;
+            recordEviction(key, cacheObject, RemovalCauseEnum.INVALIDATED);
+            if (expireAction != null) {
+                expireAction.expireAction(key, cacheObject, false);
+            }
+        }
+        if (this.showRemoveInfoLog) {
+            log.info("[{}] invalidate tag = {}, removed = {}", this.scheduleName, tag, count);
+        }
+        return count;
+    }
+
+    /**
+     * 带有该标签的 key
+     *
+     * @param tag 标签
+     * @return key 的快照
+     */
+    public Set<K> getTagKeys(Object tag) {
+        Set<K> keys = TAG_INDEX.get(tag);
+        Set<K> result = new HashSet<>();
+        if (keys != null) {
+            for (K key : keys) {
+                CacheObject<V> cacheObject = MAP.get(key);
+                if (cacheObject != null && cacheObject.hasTag(tag)) {
+                    result.add(key);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void indexTags(K key, Set<Object> tags) {
+        for (Object tag : tags) {
+            TAG_INDEX.compute(tag, (t, keys) -> {
+                if (keys == null) {
+                    keys = ConcurrentHashMap.newKeySet();
+                }
+                keys.add(key);
+                return keys;
+            });
+        }
+    }
+
+    private void unindexTags(K key, CacheObject<V> removed) {
+        if (removed.hasTags()) {
+            unindexTags(key, removed.getTags());
+        }
+    }
+
+    /**
+     * 从标签索引中移除 key，若 key 当前的缓存仍带有该标签则保留
+     */
+    private void unindexTags(K key, Set<Object> tags) {
+        for (Object tag : tags) {
+            TAG_INDEX.computeIfPresent(tag, (t, keys) -> {
+                CacheObject<V> current = MAP.get(key);
+                if (current == null || !current.hasTag(t)) {
+                    keys.remove(key);
+                }
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * 预热，使用默认的并行度并行加载不存在或已过期的 key
+     *
+     * @param keys keys
+     * @return 预热结果
+     */
+    public WarmUpResult warmUp(Iterable<K> keys) {
+        return warmUp(keys, this.warmUpParallelism, null);
+    }
+
+    public WarmUpResult warmUp(Stream<K> keys) {
+        return warmUp(keys::iterator, this.warmUpParallelism, null);
+    }
+
+    /**
+     * 预热，key 按 warmUpBatchSize 分批后在 ForkJoinPool 中并行加载，有批量加载则优先使用批量加载<br/>
+     * 已存在且未过期的 key 直接跳过，key 的读取与加载同时进行，不会一次性把所有 key 读入内存
+     *
+     * @param keys        keys
+     * @param parallelism 并行度
+     * @param progress    每完成一批回调一次进度，可以为 null
+     * @return 预热结果
+     */
+    public WarmUpResult warmUp(Iterable<K> keys, int parallelism, Consumer<WarmUpResult> progress) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0!");
+        }
+        if (this.cacherValueLoader == null && this.cacherBulkValueLoader == null) {
+            throw new IllegalStateException("warm up needs cacherValueLoader or cacherBulkValueLoader");
+        }
+        long start = System.currentTimeMillis();
+        WarmUpCounters counters = new WarmUpCounters();
+        // 限制同时在途的批次，避免 key 读取速度远大于加载速度时堆积
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<K> batch = new ArrayList<>(this.warmUpBatchSize);
+            for (K key : keys) {
+                counters.requested.increment();
+                if (key == null && this.nullKey != null) {
+                    key = this.nullKey;
+                }
+                CacheObject<V> cacheObject = MAP.get(key);
+                if (cacheObject != null && !isExpired(cacheObject)) {
+                    counters.skipped.increment();
+                    continue;
+                }
+                batch.add(key);
+                if (batch.size() >= this.warmUpBatchSize) {
+                    submitWarmUpBatch(pool, inFlight, batch, counters, start, progress);
+                    batch = new ArrayList<>(this.warmUpBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submitWarmUpBatch(pool, inFlight, batch, counters, start, progress);
+            }
+            inFlight.acquireUninterruptibly(parallelism * 2);
+        } finally {
+            pool.shutdown();
+        }
+        WarmUpResult result = counters.toResult(start);
+        if (this.showLoadInfoLog) {
+            log.info("[{}] warm up finished: {}, throughput = {}/s", this.scheduleName, result, (long) result.throughput());
+        }
+        return result;
+    }
+
+    private void submitWarmUpBatch(ForkJoinPool pool, Semaphore inFlight, List<K> batch, WarmUpCounters counters, long start, Consumer<WarmUpResult> progress) {
+        inFlight.acquireUninterruptibly();
+        pool.execute(() -> {
+            try {
+                warmUpBatch(batch, counters);
+                if (progress != null) {
+                    progress.accept(counters.toResult(start));
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void warmUpBatch(List<K> batch, WarmUpCounters counters) {
+        if (this.cacherBulkValueLoader != null) {
+            Map<K, V> values;
+            try {
+                values = loadAll(batch);
+            } catch (Exception e) {
+                log.warn("[{}] warm up bulk load error, keys = {}", this.scheduleName, batch.size(), e);
+                counters.failed.add(batch.size());
+                return;
+            }
+            for (K key : batch) {
+                CacheObject<V> load = newLoadedCacheObject(key, values == null ? null : values.get(key));
+                putWarmUp(key, load, counters);
+            }
+            return;
+        }
+        for (K key : batch) {
+            CacheObject<V> load;
+            try {
+                load = load(key);
+            } catch (Exception e) {
+                log.warn("[{}] warm up load error, key = {}", this.scheduleName, key, e);
+                counters.failed.increment();
+                continue;
+            }
+            putWarmUp(key, load, counters);
+        }
+    }
+
+    private void putWarmUp(K key, CacheObject<V> load, WarmUpCounters counters) {
+        if (load == null) {
+            counters.missing.increment();
+            return;
+        }
+        // 加载期间若已被其他线程写入新的缓存，则保留新的缓存；被替换的过期缓存与其他写入一样走过期处理
+        CacheObject<V> current = doCompute(key, (k, live) -> live != null ? live : load, false);
+        if (current == load) {
+            counters.loaded.increment();
+        } else {
+            counters.skipped.increment();
+        }
+    }
+
+    /**
+     * 预热的计数
+     */
+    private static final class WarmUpCounters {
+        private final LongAdder requested = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder loaded = new LongAdder();
+        private final LongAdder missing = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        WarmUpResult toResult(long start) {
+            return new WarmUpResult(requested.sum(), skipped.sum(), loaded.sum(), missing.sum(), failed.sum(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 把当前未过期的缓存冻结为只读的 {@link FrozenCacher}，不会修改访问时间和次数
+     *
+     * @return FrozenCacher
+     */
+    public FrozenCacher<K, V> freeze() {
+        Map<K, V> data = new HashMap<>(Math.max(16, (int) (MAP.size() / 0.75F) + 1));
+        for (Map.Entry<K, CacheObject<V>> kv : MAP.entrySet()) {
+            CacheObject<V> cacheObject = kv.getValue();
+            if (!isExpired(cacheObject)) {
+                data.put(kv.getKey(), cacheObject.getObjPure());
+            }
+        }
+        return new FrozenCacher<>(data);
     }
 
     public void printAllValues() {
@@ -276,7 +1701,7 @@ public class Cacher<K, V> implements Serializable {
         for (Map.Entry<K, CacheObject<V>> kv : entries) {
             CacheObject<V> cacheObject = kv.getValue();
             info.append("{key=").append(kv.getKey()).append(", value=").append(cacheObject.getObjPure());
-            if (cacheObject.isExpire(this.expireWayEnum, this.keepOldExpireWay)) {
+            if (isExpired(cacheObject)) {
                 info.append(", expire");
             }
             info.append("}").append(split);
@@ -290,6 +1715,7 @@ public class Cacher<K, V> implements Serializable {
 
     public void clear() {
         MAP.clear();
+        TAG_INDEX.clear();
     }
 
     public Set<K> keySet() {
@@ -368,6 +1794,14 @@ public class Cacher<K, V> implements Serializable {
         this.expireTimeLoader = expireTimeLoader;
     }
 
+    public CacherBulkValueLoader<K, V> getCacherBulkValueLoader() {
+        return cacherBulkValueLoader;
+    }
+
+    public void setCacherBulkValueLoader(CacherBulkValueLoader<K, V> cacherBulkValueLoader) {
+        this.cacherBulkValueLoader = cacherBulkValueLoader;
+    }
+
     public void setLoader(Long loadExpireTime, CacherValueLoader<K, V> cacherValueLoader) {
         setLoader(k -> loadExpireTime, cacherValueLoader);
     }
@@ -391,6 +1825,219 @@ public class Cacher<K, V> implements Serializable {
         this.expireAction = expireAction;
     }
 
+    public TagLoader<K> getTagLoader() {
+        return tagLoader;
+    }
+
+    public void setTagLoader(TagLoader<K> tagLoader) {
+        this.tagLoader = tagLoader;
+    }
+
+    public ValueCompressor<V> getValueCompressor() {
+        return valueCompressor;
+    }
+
+    /**
+     * 设置压缩器，只对之后写入的缓存生效
+     *
+     * @param valueCompressor 压缩器，为 null 则不压缩
+     */
+    public void setValueCompressor(ValueCompressor<V> valueCompressor) {
+        this.valueCompressor = valueCompressor;
+    }
+
+    /**
+     * 估算缓存占用的堆内存，最多抽样 1024 个缓存
+     *
+     * @return MemoryReport
+     */
+    public MemoryReport estimateMemory() {
+        return estimateMemory(1024);
+    }
+
+    /**
+     * 估算缓存占用的堆内存，包括 Map 节点、CacheObject 及其内部对象的开销以及 key、value 的大小<br/>
+     * 缓存数量超过 maxSamples 时随机跳过至多 {@link #ESTIMATE_MAX_SKIP} 个后取连续的 maxSamples 个，再按平均值推算全部；
+     * 遍历的数量有上限，与缓存总数无关，可以定期调用。不会解压、不会 load，也不更新访问时间
+     *
+     * @param maxSamples 最大抽样数量，&lt;= 0 表示全部遍历
+     * @return MemoryReport
+     */
+    public MemoryReport estimateMemory(int maxSamples) {
+        long start = System.nanoTime();
+        long entries = MAP.size();
+        long sampled = 0;
+        long overhead = 0;
+        long keyBytes = 0;
+        long valueBytes = 0;
+        SizeEstimator estimator = this.sizeEstimator;
+        // 按哈希分桶遍历，随机的起点避免每次都估算同一批缓存
+        long skip = maxSamples > 0 && entries > maxSamples ? ThreadLocalRandom.current().nextLong(Math.min(entries - maxSamples, ESTIMATE_MAX_SKIP) + 1) : 0;
+        for (Map.Entry<K, CacheObject<V>> entry : MAP.entrySet()) {
+            if (maxSamples > 0 && sampled >= maxSamples) {
+                break;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            CacheObject<V> cacheObject = entry.getValue();
+            sampled++;
+            overhead += entryOverhead(cacheObject, estimator);
+            keyBytes += estimator.sizeOf(entry.getKey());
+            if (cacheObject.isCompressed()) {
+                valueBytes += SizeEstimator.align(16L + cacheObject.getCompressedSize());
+            } else {
+                valueBytes += estimator.sizeOf(cacheObject.getObjPure());
+            }
+        }
+        if (sampled > 0 && sampled < entries) {
+            double scale = (double) entries / sampled;
+            overhead = (long) (overhead * scale);
+            keyBytes = (long) (keyBytes * scale);
+            valueBytes = (long) (valueBytes * scale);
+        }
+        // 遍历期间缓存数量可能变化，全部遍历时以实际遍历的数量为准
+        entries = Math.max(entries, sampled);
+        return new MemoryReport(scheduleName, entries, sampled, overhead, keyBytes, valueBytes, System.nanoTime() - start);
+    }
+
+    /**
+     * 单个缓存的固定开销，按 64 位 JVM 开启压缩指针估算<br/>
+     * ConcurrentHashMap.Node 32 字节加上约 8 字节的桶数组槽位；CacheObject 80 字节加上两个 AtomicInteger 共 32 字节；
+     * 过期时间的 Long 16 字节；软引用 32 字节；标签集合及其在二级索引中的节点
+     */
+    private static long entryOverhead(CacheObject<?> cacheObject, SizeEstimator estimator) {
+        long size = 40 + 112;
+        if (cacheObject.getExpireTime() != null) {
+            size += 16;
+        }
+        if (cacheObject.isSoftValue()) {
+            size += 32;
+        }
+        if (cacheObject.hasTags()) {
+            Set<Object> tags = cacheObject.getTags();
+            size += estimator.sizeOf(tags) + tags.size() * 36L;
+        }
+        return size;
+    }
+
+    /**
+     * 访问次数最多的 k 个 key，需要在 {@link CacherBuilder#hotKeyTracking(int)} 中开启统计
+     *
+     * @param k 数量
+     * @return 热点 key 列表，按访问次数从高到低排序，未开启统计时为空
+     */
+    public List<HotKey<K>> hotKeys(int k) {
+        HotKeyTracker<K> tracker = this.hotKeyTracker;
+        return tracker == null ? new ArrayList<>() : tracker.hotKeys(k);
+    }
+
+    public HotKeyTracker<K> getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+
+    public void setHotKeyTracker(HotKeyTracker<K> hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+        if (hotKeyTracker != null) {
+            hotKeyTracker.setDrainExecutor(scheduledExecutorService);
+        }
+    }
+
+    /**
+     * 缓存变更事件流，关闭清理任务时所有订阅者收到 onComplete，重置清理任务后可以重新订阅<br/>
+     * put、set、compute 等写入发布 PUT 或 UPDATE，过期发布 EXPIRE，remove、按标签失效发布 REMOVE，淘汰发布 EVICT；clear 不发布事件
+     *
+     * @return CacheEventPublisher
+     */
+    public CacheEventPublisher<K, V> events() {
+        return eventPublisher;
+    }
+
+    public long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * 修改最大缓存数量，缩小后超出的部分在清理线程中淘汰
+     *
+     * @param maximumSize 最大缓存数量，0 表示不限制
+     */
+    public void setMaximumSize(long maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize < 0!");
+        }
+        if (maximumSize > 0 && this.evictedKeyHashes == null) {
+            this.evictedKeyHashes = new int[EVICTED_KEY_SLOTS];
+        }
+        this.maximumSize = maximumSize;
+        afterInsert();
+    }
+
+    /**
+     * get 命中的次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * get 未命中的次数，包括已过期
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 未命中的 key 是最近因内存或容量被淘汰的次数，即容量再大一些就能命中的次数，近似值
+     */
+    public long getCapacityMissCount() {
+        return capacityMissCount.sum();
+    }
+
+    /**
+     * 因内存压力或容量被淘汰的数量
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public SizeEstimator getSizeEstimator() {
+        return sizeEstimator;
+    }
+
+    public void setSizeEstimator(SizeEstimator sizeEstimator) {
+        this.sizeEstimator = sizeEstimator == null ? SizeEstimator.DEFAULT : sizeEstimator;
+    }
+
+    public boolean isBufferedAccess() {
+        return accessBuffer != null;
+    }
+
+    public boolean isAdaptiveExpire() {
+        return adaptiveExpireSampleSize > 0;
+    }
+
+    public AccessTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * 设置访问轨迹记录，替换下来的记录需要自行关闭
+     *
+     * @param traceRecorder 访问轨迹记录，为 null 则不记录
+     */
+    public void setTraceRecorder(AccessTraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+        if (traceRecorder != null) {
+            traceRecorder.setDrainExecutor(scheduledExecutorService);
+        }
+    }
+
     public String getScheduleName() {
         return scheduleName;
     }
@@ -409,4 +2056,53 @@ public class Cacher<K, V> implements Serializable {
         }
         return sb.toString();
     }
+
+    private record EvictionCandidate<K, V>(K key, CacheObject<V> cacheObject, long accessTime, int accessCount) {
+    }
+
+    /**
+     * 候选中最冷的 count 个，最后访问时间越早越冷，相同时访问次数越少越冷<br/>
+     * 大顶堆，堆顶是候选中最热的，遇到更冷的就替换堆顶；访问时间和次数取快照，避免扫描期间变化破坏堆
+     */
+    private static final class ColdestCandidates<K, V> {
+        private static final Comparator<EvictionCandidate<?, ?>> COLDNESS = Comparator
+                .<EvictionCandidate<?, ?>>comparingLong(EvictionCandidate::accessTime)
+                .thenComparingInt(EvictionCandidate::accessCount);
+
+        private final int count;
+        private final PriorityQueue<EvictionCandidate<K, V>> candidates;
+
+        ColdestCandidates(int count) {
+            this.count = count;
+            this.candidates = new PriorityQueue<>(Math.min(count, 1024) + 1, COLDNESS.reversed());
+        }
+
+        void offer(Map.Entry<K, CacheObject<V>> entry) {
+            CacheObject<V> cacheObject = entry.getValue();
+            EvictionCandidate<K, V> candidate = new EvictionCandidate<>(entry.getKey(), cacheObject, cacheObject.getAccessTime(), cacheObject.getAccessCount());
+            if (candidates.size() < count) {
+                candidates.add(candidate);
+            } else if (COLDNESS.compare(candidate, candidates.peek()) < 0) {
+                candidates.poll();
+                candidates.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * load 失败的重试状态
+     *
+     * @param failures        连续失败次数
+     * @param nextAttemptTime 下一次允许重试的时间
+     * @param loading         是否有线程正在 load，期间其他线程直接返回过期缓存
+     */
+    private record ReloadBackoff(int failures, long nextAttemptTime, boolean loading) {
+    }
+
+    /**
+     * 在 lambda 中带出结果
+     */
+    private static final class Holder<T> {
+        private T value;
+    }
 }
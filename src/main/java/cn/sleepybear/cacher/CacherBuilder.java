@@ -2,11 +2,22 @@ package cn.sleepybear.cacher;
 
 import cn.sleepybear.cacher.cache.CacheObject;
 import cn.sleepybear.cacher.cache.ExpireWayEnum;
+import cn.sleepybear.cacher.cache.ValueCodec;
+import cn.sleepybear.cacher.cache.ValueCompressor;
+import cn.sleepybear.cacher.event.OverflowPolicyEnum;
+import cn.sleepybear.cacher.loader.CacherBulkValueLoader;
 import cn.sleepybear.cacher.loader.CacherValueLoader;
 import cn.sleepybear.cacher.loader.ExpireAction;
 import cn.sleepybear.cacher.loader.ExpireTimeLoader;
+import cn.sleepybear.cacher.loader.TagLoader;
+import cn.sleepybear.cacher.memory.SizeEstimator;
+import cn.sleepybear.cacher.stat.HotKeyTracker;
+import cn.sleepybear.cacher.trace.AccessTraceRecorder;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
 
 /**
  * There is description
@@ -42,6 +53,52 @@ public class CacherBuilder<K, V> {
     protected CacherValueLoader<K, V> cacherValueLoader = null;
     protected ExpireTimeLoader<K> expireTimeLoader = null;
     protected ExpireAction<K, CacheObject<V>> expireAction = null;
+    protected CacherBulkValueLoader<K, V> cacherBulkValueLoader = null;
+    protected TagLoader<K> tagLoader = null;
+
+    protected int warmUpParallelism = Runtime.getRuntime().availableProcessors();
+    protected int warmUpBatchSize = 256;
+
+    protected ValueCompressor<V> valueCompressor = null;
+
+    protected HotKeyTracker<K> hotKeyTracker = null;
+
+    protected AccessTraceRecorder traceRecorder = null;
+
+    protected boolean bufferedAccess = false;
+
+    protected SizeEstimator sizeEstimator = null;
+
+    protected boolean jmxEnabled = false;
+
+    protected Executor eventExecutor = null;
+
+    protected long maximumSize = 0L;
+
+    protected ScheduledExecutorService scheduler = null;
+
+    protected long maxStaleness = 0L;
+
+    protected long reloadBackoffInitial = 1000L;
+
+    protected long reloadBackoffMax = 60000L;
+
+    protected int eventBufferSize = 256;
+
+    protected OverflowPolicyEnum eventOverflowPolicy = OverflowPolicyEnum.DROP;
+
+    /**
+     * 自适应过期清理每轮抽查的数量，0 表示使用全量扫描
+     */
+    protected int adaptiveExpireSampleSize = 0;
+    protected long adaptiveExpireTimeBudget = 10L;
+    protected long adaptiveExpireMinDelay = 100L;
+
+    protected boolean softValues = false;
+    /**
+     * 堆使用率阈值，0 表示不监控内存压力
+     */
+    protected double memoryPressureThreshold = 0;
 
     public CacherBuilder() {
     }
@@ -64,6 +121,29 @@ public class CacherBuilder<K, V> {
         this.cacherValueLoader = copy.cacherValueLoader;
         this.expireTimeLoader = copy.expireTimeLoader;
         this.expireAction = copy.expireAction;
+        this.cacherBulkValueLoader = copy.cacherBulkValueLoader;
+        this.tagLoader = copy.tagLoader;
+        this.warmUpParallelism = copy.warmUpParallelism;
+        this.warmUpBatchSize = copy.warmUpBatchSize;
+        this.valueCompressor = copy.valueCompressor;
+        this.hotKeyTracker = copy.hotKeyTracker;
+        this.traceRecorder = copy.traceRecorder;
+        this.bufferedAccess = copy.bufferedAccess;
+        this.sizeEstimator = copy.sizeEstimator;
+        this.jmxEnabled = copy.jmxEnabled;
+        this.eventExecutor = copy.eventExecutor;
+        this.maximumSize = copy.maximumSize;
+        this.scheduler = copy.scheduler;
+        this.maxStaleness = copy.maxStaleness;
+        this.reloadBackoffInitial = copy.reloadBackoffInitial;
+        this.reloadBackoffMax = copy.reloadBackoffMax;
+        this.eventBufferSize = copy.eventBufferSize;
+        this.eventOverflowPolicy = copy.eventOverflowPolicy;
+        this.adaptiveExpireSampleSize = copy.adaptiveExpireSampleSize;
+        this.adaptiveExpireTimeBudget = copy.adaptiveExpireTimeBudget;
+        this.adaptiveExpireMinDelay = copy.adaptiveExpireMinDelay;
+        this.softValues = copy.softValues;
+        this.memoryPressureThreshold = copy.memoryPressureThreshold;
     }
 
     public CacherBuilder<K, V> expireWay(ExpireWayEnum expireWayEnum) {
@@ -200,7 +280,298 @@ public class CacherBuilder<K, V> {
         return this;
     }
 
+    /**
+     * 批量加载，预热时优先使用
+     *
+     * @param cacherBulkValueLoader 批量加载
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> cacherBulkLoader(CacherBulkValueLoader<K, V> cacherBulkValueLoader) {
+        this.cacherBulkValueLoader = cacherBulkValueLoader;
+        return this;
+    }
+
+    /**
+     * load 结果的标签，可以通过 {@link Cacher#invalidateTag(Object)} 按标签批量删除
+     *
+     * @param tagLoader 标签加载
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> tagLoader(TagLoader<K> tagLoader) {
+        this.tagLoader = tagLoader;
+        return this;
+    }
+
+    public CacherBuilder<K, V> warmUpParallelism(int warmUpParallelism) {
+        if (warmUpParallelism <= 0) {
+            throw new IllegalArgumentException("warmUpParallelism <= 0!");
+        }
+        this.warmUpParallelism = warmUpParallelism;
+        return this;
+    }
+
+    public CacherBuilder<K, V> warmUpBatchSize(int warmUpBatchSize) {
+        if (warmUpBatchSize <= 0) {
+            throw new IllegalArgumentException("warmUpBatchSize <= 0!");
+        }
+        this.warmUpBatchSize = warmUpBatchSize;
+        return this;
+    }
+
+    /**
+     * 开启压缩，编码后字节数达到 threshold 的 value 压缩保存，get 时再解压
+     *
+     * @param codec     编解码器，参见 {@link ValueCodec}
+     * @param threshold 压缩阈值，字节
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> compress(ValueCodec<V> codec, int threshold) {
+        return compress(codec, threshold, 0);
+    }
+
+    /**
+     * 开启压缩，并保留最近 hotSetSize 个解压结果，热点 value 不用反复解压
+     *
+     * @param codec      编解码器，参见 {@link ValueCodec}
+     * @param threshold  压缩阈值，字节
+     * @param hotSetSize 解压结果保留数量
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> compress(ValueCodec<V> codec, int threshold, int hotSetSize) {
+        return compress(new ValueCompressor<>(codec, threshold, Deflater.BEST_SPEED, hotSetSize));
+    }
+
+    public CacherBuilder<K, V> compress(ValueCompressor<V> valueCompressor) {
+        this.valueCompressor = valueCompressor;
+        return this;
+    }
+
+    /**
+     * 开启热点 key 统计，默认每 16 次 get 采样一次
+     *
+     * @param capacity 最多跟踪的 key 数量
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> hotKeyTracking(int capacity) {
+        return hotKeyTracking(new HotKeyTracker<>(capacity));
+    }
+
+    /**
+     * 开启热点 key 统计
+     *
+     * @param capacity   最多跟踪的 key 数量
+     * @param sampleRate 采样率，每 sampleRate 次 get 采样一次
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> hotKeyTracking(int capacity, int sampleRate) {
+        return hotKeyTracking(new HotKeyTracker<>(capacity, sampleRate));
+    }
+
+    public CacherBuilder<K, V> hotKeyTracking(HotKeyTracker<K> hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+        return this;
+    }
+
+    /**
+     * 读命中时不直接更新缓存对象的访问时间和次数，而是写入分段的有损缓冲区，由清理任务或缓冲区满时批量回放<br/>
+     * 热点 key 的并发读取不再争用同一个缓存行；AFTER_ACCESS 过期与淘汰用到的访问时间会稍有延迟，
+     * 缓冲区竞争时少量访问记录会被丢弃
+     *
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> bufferedAccess() {
+        this.bufferedAccess = true;
+        return this;
+    }
+
+    /**
+     * 记录 get/put 的访问轨迹，可以用 {@link cn.sleepybear.cacher.trace.TraceSimulator} 离线回放
+     *
+     * @param traceRecorder 访问轨迹记录
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> traceRecorder(AccessTraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+        return this;
+    }
+
+    /**
+     * 使用自适应的增量过期清理代替全量扫描，每轮抽查 20 个，每次最多 10 毫秒，最短间隔 100 毫秒，最长间隔为 delay
+     *
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> adaptiveExpire() {
+        return adaptiveExpire(20, 10L, 100L);
+    }
+
+    /**
+     * 使用自适应的增量过期清理代替全量扫描，只删除过期缓存，不会触发 load<br/>
+     * 抽查到的过期比例超过 25% 时继续抽查并以最短间隔再次清理，否则间隔逐步翻倍直到 delay
+     *
+     * @param sampleSize       每轮抽查的数量
+     * @param timeBudgetMillis 每次清理的时间预算，毫秒
+     * @param minDelayMillis   最短清理间隔，毫秒
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> adaptiveExpire(int sampleSize, long timeBudgetMillis, long minDelayMillis) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("sampleSize <= 0!");
+        }
+        if (timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("timeBudgetMillis <= 0!");
+        }
+        if (minDelayMillis <= 0) {
+            throw new IllegalArgumentException("minDelayMillis <= 0!");
+        }
+        this.adaptiveExpireSampleSize = sampleSize;
+        this.adaptiveExpireTimeBudget = timeBudgetMillis;
+        this.adaptiveExpireMinDelay = minDelayMillis;
+        return this;
+    }
+
+    /**
+     * 以软引用保存缓存对象，作为内存不足时的最后防线，被 GC 回收的缓存视为过期
+     *
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> softValues() {
+        this.softValues = true;
+        return this;
+    }
+
+    /**
+     * 监控堆内存压力，GC 后的堆使用率超过 threshold 时淘汰最冷的缓存，把缓存数量缩到 size * threshold / 使用率
+     *
+     * @param threshold 堆使用率阈值，(0, 1)
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> memoryPressureEviction(double threshold) {
+        if (threshold <= 0 || threshold >= 1 || Double.isNaN(threshold)) {
+            throw new IllegalArgumentException("Illegal threshold: " + threshold);
+        }
+        this.memoryPressureThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * 内存估算使用的 key、value 大小估算，默认 {@link SizeEstimator#DEFAULT}
+     *
+     * @param sizeEstimator 大小估算
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> sizeEstimator(SizeEstimator sizeEstimator) {
+        if (sizeEstimator == null) {
+            throw new IllegalArgumentException("sizeEstimator can not be null!");
+        }
+        this.sizeEstimator = sizeEstimator;
+        return this;
+    }
+
+    /**
+     * 把内存估算注册为 JMX MBean，名称为 cn.sleepybear.cacher:type=Cacher,name=scheduleName，关闭清理任务时取消注册
+     *
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> jmx() {
+        this.jmxEnabled = true;
+        return this;
+    }
+
+    /**
+     * 变更事件订阅者的默认缓冲区大小和溢出策略，默认 256、DROP
+     *
+     * @param bufferSize     缓冲区大小
+     * @param overflowPolicy 溢出策略
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> events(int bufferSize, OverflowPolicyEnum overflowPolicy) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize <= 0!");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy can not be null!");
+        }
+        this.eventBufferSize = bufferSize;
+        this.eventOverflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    /**
+     * 投递变更事件的线程池，默认 ForkJoinPool.commonPool()
+     *
+     * @param executor 线程池
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> eventExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor can not be null!");
+        }
+        this.eventExecutor = executor;
+        return this;
+    }
+
+    /**
+     * 最大缓存数量，超出后在清理线程中批量淘汰最冷的缓存
+     *
+     * @param maximumSize 最大缓存数量
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> maximumSize(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize <= 0!");
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * 使用外部共享的清理线程池，不再单独创建线程池，corePoolSize 不再生效；关闭缓存时只取消自己的任务，不会关闭该线程池
+     *
+     * @param scheduler 线程池
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> scheduler(ScheduledExecutorService scheduler) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler can not be null!");
+        }
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * 过期缓存重新 load 抛出异常时继续返回过期的值，而不是删除缓存并抛出异常；同一个 key 的重试间隔从 1 秒开始翻倍，最长 60 秒<br/>
+     * 过期超过 maxStaleness 后恢复原来的行为：删除缓存并直接 load
+     *
+     * @param maxStalenessMillis 过期后最多继续使用的时长，毫秒
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> serveStaleOnError(long maxStalenessMillis) {
+        return serveStaleOnError(maxStalenessMillis, 1000L, 60000L);
+    }
+
+    /**
+     * @param maxStalenessMillis   过期后最多继续使用的时长，毫秒
+     * @param initialBackoffMillis 第一次失败后的重试间隔，毫秒
+     * @param maxBackoffMillis     最大重试间隔，毫秒
+     * @return CacherBuilder
+     */
+    public CacherBuilder<K, V> serveStaleOnError(long maxStalenessMillis, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxStalenessMillis <= 0) {
+            throw new IllegalArgumentException("maxStalenessMillis <= 0!");
+        }
+        if (initialBackoffMillis <= 0) {
+            throw new IllegalArgumentException("initialBackoffMillis <= 0!");
+        }
+        if (maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("maxBackoffMillis < initialBackoffMillis!");
+        }
+        this.maxStaleness = maxStalenessMillis;
+        this.reloadBackoffInitial = initialBackoffMillis;
+        this.reloadBackoffMax = maxBackoffMillis;
+        return this;
+    }
+
     public Cacher<K, V> build() {
-        return new Cacher<>(expireWayEnum, keepOldExpireWay, corePoolSize, scheduleName, initialDelay, delay, timeUnit, fixRate, initialCapacity, loadFactor, nullKey, showExpireTimeLog, showRemoveInfoLog, showLoadInfoLog, cacherValueLoader, expireTimeLoader, expireAction);
+        return new Cacher<>(this);
     }
 }
@@ -0,0 +1,337 @@
+package cn.sleepybear.cacher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个缓存共享一个全局预算和一个清理线程池<br/>
+ * 预算按缓存数量或估算字节数分配给各个缓存，转换为各自的 maximumSize；定期按每单位预算的边际收益重新分配：
+ * 边际收益取未命中的 key 恰好是最近因容量被淘汰的次数（即多给一些容量就能命中的次数）除以这部分淘汰覆盖的预算，
+ * 每次把一小部分预算从收益最低或用不满的缓存转给收益最高的缓存，预算总量保持不变<br/>
+ * 每个缓存至少保留 1% 的预算（至少为 1），预算不足以再分出一份时拒绝注册
+ *
+ * @author sleepybear
+ * @date 2026/10/19 21:20
+ */
+public class CacherManager implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CacherManager.class);
+
+    /**
+     * 缓存为空、无法估算每个缓存的大小时使用的默认字节数
+     */
+    private static final long DEFAULT_ENTRY_BYTES = 256L;
+
+    /**
+     * 缓存数量低于 maximumSize 的该比例时视为用不满，多余的预算可以直接转出
+     */
+    private static final double SLACK_RATIO = 0.9;
+
+    private final long budget;
+    private final BudgetTypeEnum budgetType;
+
+    /**
+     * 每次重新分配最多转移的预算比例
+     */
+    private final double stepRatio;
+
+    /**
+     * 每个缓存至少保留的预算
+     */
+    private final long minQuota;
+
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledFuture<?> rebalanceFuture;
+
+    /**
+     * 以 scheduleName 为 key，只在持有 this 锁时访问
+     */
+    private final Map<String, Managed> caches = new LinkedHashMap<>();
+
+    /**
+     * @param budget     全局预算
+     * @param budgetType 预算单位
+     */
+    public CacherManager(long budget, BudgetTypeEnum budgetType) {
+        this(budget, budgetType, 2, 10L, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param budget            全局预算
+     * @param budgetType        预算单位
+     * @param corePoolSize      共享清理线程池的线程数
+     * @param rebalanceInterval 重新分配的间隔，&lt;= 0 表示不自动重新分配，只能调用 {@link #rebalance()}
+     * @param timeUnit          时间单位
+     */
+    public CacherManager(long budget, BudgetTypeEnum budgetType, int corePoolSize, long rebalanceInterval, TimeUnit timeUnit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("budget <= 0!");
+        }
+        if (budgetType == null) {
+            throw new IllegalArgumentException("budgetType can not be null!");
+        }
+        if (corePoolSize <= 0) {
+            throw new IllegalArgumentException("corePoolSize <= 0!");
+        }
+        this.budget = budget;
+        this.budgetType = budgetType;
+        this.stepRatio = 0.05;
+        this.minQuota = Math.max(1, budget / 100);
+        this.scheduler = new ScheduledThreadPoolExecutor(corePoolSize, r -> new Thread(r, "cacher-manager"));
+        if (rebalanceInterval > 0) {
+            this.rebalanceFuture = scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    rebalance();
+                } catch (Exception e) {
+                    log.error("cacher manager rebalance error", e);
+                }
+            }, rebalanceInterval, rebalanceInterval, timeUnit);
+        } else {
+            this.rebalanceFuture = null;
+        }
+    }
+
+    /**
+     * 使用共享的清理线程池创建缓存并注册，builder 本身不会被修改
+     *
+     * @param builder CacherBuilder
+     * @return Cacher
+     */
+    public <K, V> Cacher<K, V> create(CacherBuilder<K, V> builder) {
+        Cacher<K, V> cacher = new CacherBuilder<>(builder).scheduler(scheduler).build();
+        try {
+            register(cacher);
+        } catch (RuntimeException e) {
+            cacher.shutdownExpireScheduleNow();
+            throw e;
+        }
+        return cacher;
+    }
+
+    /**
+     * 注册缓存，新缓存分到平均的预算，从已有的缓存中按比例扣除
+     *
+     * @param cacher 缓存，scheduleName 不能与已注册的缓存重复
+     */
+    public synchronized void register(Cacher<?, ?> cacher) {
+        if (cacher == null) {
+            throw new IllegalArgumentException("cacher can not be null!");
+        }
+        String name = cacher.getScheduleName();
+        if (caches.containsKey(name)) {
+            throw new IllegalArgumentException("cacher already registered: " + name);
+        }
+        int n = caches.size();
+        if ((n + 1) * minQuota > budget) {
+            throw new IllegalStateException("budget " + budget + " can not fit " + (n + 1) + " cachers with min quota " + minQuota);
+        }
+        List<Managed> list = new ArrayList<>(caches.values());
+        long[] weights = new long[n + 1];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            weights[i] = list.get(i).quota - minQuota;
+            total += weights[i];
+        }
+        // 新缓存的权重取已有缓存的平均值，即分到平均的预算
+        weights[n] = n == 0 ? 1 : total / n;
+        Managed managed = new Managed(cacher);
+        list.add(managed);
+        caches.put(name, managed);
+        allocate(list, weights);
+    }
+
+    /**
+     * 取消注册，释放的预算按比例分给其他缓存，缓存保留当前的 maximumSize
+     *
+     * @param cacher 缓存
+     * @return 是否已注册
+     */
+    public synchronized boolean unregister(Cacher<?, ?> cacher) {
+        Managed removed = caches.get(cacher.getScheduleName());
+        if (removed == null || removed.cacher != cacher) {
+            return false;
+        }
+        caches.remove(cacher.getScheduleName());
+        List<Managed> list = new ArrayList<>(caches.values());
+        long[] weights = new long[list.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = list.get(i).quota - minQuota;
+        }
+        allocate(list, weights);
+        return true;
+    }
+
+    /**
+     * 每个缓存先分到 minQuota，剩余的预算按权重分配，取整的余数给权重最大的缓存，保证总和等于 budget
+     *
+     * @param list    缓存
+     * @param weights 权重，与 list 一一对应，全为 0 时平均分配
+     */
+    private void allocate(List<Managed> list, long[] weights) {
+        if (list.isEmpty()) {
+            return;
+        }
+        long spare = budget - minQuota * list.size();
+        long total = 0;
+        int largest = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            if (weights[i] > weights[largest]) {
+                largest = i;
+            }
+        }
+        long assigned = 0;
+        for (int i = 0; i < list.size(); i++) {
+            long extra = total == 0 ? spare / list.size() : (long) ((double) spare * weights[i] / total);
+            list.get(i).quota = minQuota + extra;
+            assigned += extra;
+        }
+        list.get(largest).quota += spare - assigned;
+        for (Managed managed : list) {
+            apply(managed);
+        }
+    }
+
+    /**
+     * 按边际收益重新分配一次预算
+     */
+    public synchronized void rebalance() {
+        List<Managed> list = new ArrayList<>(caches.values());
+        for (Managed managed : list) {
+            managed.sample(budgetType);
+        }
+        if (list.size() >= 2) {
+            Managed receiver = null;
+            Managed donor = null;
+            for (Managed managed : list) {
+                if (managed.utility > 0 && (receiver == null || managed.utility > receiver.utility)) {
+                    receiver = managed;
+                }
+            }
+            if (receiver != null) {
+                for (Managed managed : list) {
+                    if (managed == receiver || managed.quota <= minQuota) {
+                        continue;
+                    }
+                    // 用不满的缓存优先转出，其次是收益最低的
+                    if (donor == null || managed.slack > donor.slack || (managed.slack == donor.slack && managed.utility < donor.utility)) {
+                        donor = managed;
+                    }
+                }
+            }
+            if (donor != null && (donor.slack > 0 || donor.utility < receiver.utility)) {
+                long step = donor.slack > 0 ? donor.slack : (long) (budget * stepRatio);
+                step = Math.min(step, donor.quota - minQuota);
+                donor.quota -= step;
+                receiver.quota += step;
+                log.debug("cacher manager move {} {} from [{}] to [{}]", step, budgetType, donor.cacher.getScheduleName(), receiver.cacher.getScheduleName());
+            }
+        }
+        for (Managed managed : list) {
+            apply(managed);
+        }
+    }
+
+    private void apply(Managed managed) {
+        long entries = budgetType == BudgetTypeEnum.ENTRIES ? managed.quota : managed.quota / managed.entryBytes;
+        managed.cacher.setMaximumSize(Math.max(1, entries));
+    }
+
+    /**
+     * 缓存当前分到的预算
+     *
+     * @param cacher 缓存
+     * @return 预算，未注册返回 -1
+     */
+    public synchronized long getQuota(Cacher<?, ?> cacher) {
+        Managed managed = caches.get(cacher.getScheduleName());
+        return managed == null || managed.cacher != cacher ? -1 : managed.quota;
+    }
+
+    /**
+     * 所有缓存的预算
+     *
+     * @return scheduleName 到预算
+     */
+    public synchronized Map<String, Long> getQuotas() {
+        Map<String, Long> quotas = new LinkedHashMap<>();
+        caches.forEach((name, managed) -> quotas.put(name, managed.quota));
+        return quotas;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public BudgetTypeEnum getBudgetType() {
+        return budgetType;
+    }
+
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 关闭所有注册的缓存的清理任务以及共享线程池
+     */
+    @Override
+    public synchronized void close() {
+        if (rebalanceFuture != null) {
+            rebalanceFuture.cancel(false);
+        }
+        for (Managed managed : caches.values()) {
+            managed.cacher.shutdownExpireScheduleNow();
+        }
+        caches.clear();
+        scheduler.shutdownNow();
+    }
+
+    private static final class Managed {
+        private final Cacher<?, ?> cacher;
+        private long quota;
+        private long entryBytes = DEFAULT_ENTRY_BYTES;
+        private long lastCapacityMisses;
+
+        /**
+         * 上一个周期每单位预算的容量未命中次数
+         */
+        private double utility;
+
+        /**
+         * 用不满的预算，转出后仍保留约 10% 的余量
+         */
+        private long slack;
+
+        Managed(Cacher<?, ?> cacher) {
+            this.cacher = cacher;
+            this.lastCapacityMisses = cacher.getCapacityMissCount();
+        }
+
+        void sample(BudgetTypeEnum budgetType) {
+            long unit = 1;
+            if (budgetType == BudgetTypeEnum.BYTES) {
+                long average = cacher.estimateMemory(256).averageEntryBytes();
+                if (average > 0) {
+                    entryBytes = average;
+                }
+                unit = entryBytes;
+            }
+            long capacityMisses = cacher.getCapacityMissCount();
+            long delta = capacityMisses - lastCapacityMisses;
+            lastCapacityMisses = capacityMisses;
+            // 淘汰记录覆盖的范围约为 EVICTED_KEY_SLOTS 个缓存
+            utility = (double) delta / ((double) Cacher.EVICTED_KEY_SLOTS * unit);
+            long size = cacher.size();
+            long max = cacher.getMaximumSize();
+            slack = max > 0 && size < max * SLACK_RATIO ? Math.max(0, quota - (long) Math.ceil(size * unit / SLACK_RATIO)) : 0;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package cn.sleepybear.cacher;
+
+import cn.sleepybear.cacher.cache.CacheObject;
+import cn.sleepybear.cacher.jfr.ExpireSweepEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应的增量过期清理，参考 Redis 的主动过期策略<br/>
+ * 每次只抽查有限个缓存，并且在时间预算内结束；抽查到的过期比例高则加快清理频率，比例低则逐步退避到 delay<br/>
+ * 只删除过期缓存，不会触发 load
+ *
+ * @author sleepybear
+ * @date 2026/10/19 16:40
+ */
+class ExpireSweeper<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(ExpireSweeper.class);
+
+    private final Cacher<K, V> cacher;
+
+    /**
+     * 每轮抽查的数量
+     */
+    private final int sampleSize;
+
+    /**
+     * 每次清理的时间预算，纳秒
+     */
+    private final long timeBudgetNanos;
+
+    /**
+     * 过期比例超过该值时继续下一轮抽查，并使用最小间隔
+     */
+    private final double expiredRatioThreshold;
+
+    /**
+     * 最小、最大清理间隔，毫秒
+     */
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * 只在持有 this 锁时访问
+     */
+    private Iterator<Map.Entry<K, CacheObject<V>>> cursor;
+
+    /**
+     * 最近一次清理最后一轮抽查的过期比例，由 {@link #sweep()} 写入
+     */
+    private volatile double lastExpiredRatio;
+
+    /**
+     * 当前清理间隔，只在清理线程中访问
+     */
+    private long currentDelayMillis;
+
+    /**
+     * 停止后不再重新调度，用于共享线程池时停止清理
+     */
+    private volatile boolean stopped;
+
+    ExpireSweeper(Cacher<K, V> cacher, int sampleSize, long timeBudgetMillis, double expiredRatioThreshold, long minDelayMillis, long maxDelayMillis) {
+        this.cacher = cacher;
+        this.sampleSize = sampleSize;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        this.expiredRatioThreshold = expiredRatioThreshold;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = Math.max(minDelayMillis, maxDelayMillis);
+        this.currentDelayMillis = this.maxDelayMillis;
+    }
+
+    /**
+     * 在指定的线程池上开始清理，之后每次清理完成后根据过期比例重新调度
+     */
+    void start(ScheduledExecutorService executor, long initialDelay, TimeUnit timeUnit) {
+        executor.schedule(() -> tick(executor), initialDelay, timeUnit);
+    }
+
+    void stop() {
+        this.stopped = true;
+    }
+
+    private void tick(ScheduledExecutorService executor) {
+        if (stopped) {
+            return;
+        }
+        try {
+            cacher.drainBuffers();
+            sweep();
+            if (lastExpiredRatio > expiredRatioThreshold) {
+                currentDelayMillis = minDelayMillis;
+            } else {
+                currentDelayMillis = Math.min(maxDelayMillis, currentDelayMillis * 2);
+            }
+        } catch (Exception e) {
+            log.error("[{}] adaptive expire error", cacher.getScheduleName(), e);
+        } finally {
+            try {
+                if (!stopped) {
+                    executor.schedule(() -> tick(executor), currentDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException ignored) {
+                // 线程池已关闭，停止清理
+            }
+        }
+    }
+
+    /**
+     * 执行一次清理
+     *
+     * @return 删除的数量
+     */
+    synchronized long sweep() {
+        ExpireSweepEvent event = new ExpireSweepEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long scanned = 0;
+        long removed = 0;
+        double ratio;
+        do {
+            int sampled = 0;
+            int expired = 0;
+            boolean restarted = false;
+            while (sampled < sampleSize) {
+                if (cursor == null || !cursor.hasNext()) {
+                    if (restarted) {
+                        // 整个 Map 都已经扫过一遍
+                        break;
+                    }
+                    cursor = cacher.entrySet().iterator();
+                    restarted = true;
+                    if (!cursor.hasNext()) {
+                        break;
+                    }
+                }
+                Map.Entry<K, CacheObject<V>> entry = cursor.next();
+                sampled++;
+                if (cacher.removeIfExpired(entry.getKey(), entry.getValue())) {
+                    expired++;
+                }
+            }
+            scanned += sampled;
+            removed += expired;
+            ratio = sampled == 0 ? 0 : (double) expired / sampled;
+            if (restarted && sampled < sampleSize) {
+                break;
+            }
+        } while (ratio > expiredRatioThreshold && System.nanoTime() - start < timeBudgetNanos);
+
+        this.lastExpiredRatio = ratio;
+        event.end();
+        if (event.shouldCommit()) {
+            event.cacheName = cacher.getScheduleName();
+            event.mode = "ADAPTIVE";
+            event.scanned = scanned;
+            event.removed = removed;
+            event.commit();
+        }
+        if (cacher.isShowExpireTimeLog()) {
+            log.info("[{}] adaptive expire: scanned = {}, removed = {}, cost = {}us", cacher.getScheduleName(), scanned, removed, (System.nanoTime() - start) / 1000);
+        }
+        return removed;
+    }
+}
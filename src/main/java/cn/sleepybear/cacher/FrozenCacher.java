@@ -0,0 +1,174 @@
+package cn.sleepybear.cacher;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 只读的冻结缓存，适合只会整体重载的参考数据<br/>
+ * 数据构建为不可变的开放寻址数组，key 和 value 交错存放在同一个数组中；读取时没有任何写操作，
+ * 也没有过期判断，多核并发读取不会产生缓存行争用。重载时构建新的数组后整体原子替换
+ *
+ * @author sleepybear
+ * @date 2026/10/19 17:50
+ */
+public class FrozenCacher<K, V> {
+
+    /**
+     * 当前的数据，重载时整体替换
+     */
+    private volatile Table<K, V> table;
+
+    /**
+     * 数据加载，用于 {@link #reload()}，可以为 null
+     */
+    private final Supplier<? extends Map<? extends K, ? extends V>> dataLoader;
+
+    /**
+     * 使用固定的数据构建
+     *
+     * @param data 数据
+     */
+    public FrozenCacher(Map<? extends K, ? extends V> data) {
+        this.dataLoader = null;
+        this.table = new Table<>(data);
+    }
+
+    /**
+     * 使用数据加载构建，构建时立即加载一次
+     *
+     * @param dataLoader 数据加载
+     */
+    public FrozenCacher(Supplier<? extends Map<? extends K, ? extends V>> dataLoader) {
+        if (dataLoader == null) {
+            throw new IllegalArgumentException("dataLoader can not be null!");
+        }
+        this.dataLoader = dataLoader;
+        this.table = new Table<>(dataLoader.get());
+    }
+
+    public V get(K key) {
+        return table.get(key);
+    }
+
+    public V getIfAbsent(K key, V absentValue) {
+        V v = get(key);
+        return v == null ? absentValue : v;
+    }
+
+    public boolean containsKey(K key) {
+        return table.get(key) != null;
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * 遍历所有数据
+     *
+     * @param action 操作
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        table.forEach(action);
+    }
+
+    /**
+     * 使用构建时的数据加载重新加载
+     */
+    public void reload() {
+        if (dataLoader == null) {
+            throw new IllegalStateException("no dataLoader to reload");
+        }
+        reload(dataLoader.get());
+    }
+
+    /**
+     * 使用新的数据整体替换，替换前的读取看到的都是旧数据，替换后看到的都是新数据
+     *
+     * @param data 数据
+     */
+    public void reload(Map<? extends K, ? extends V> data) {
+        this.table = new Table<>(data);
+    }
+
+    /**
+     * 不可变的开放寻址表，线性探测，负载因子不超过 0.5
+     */
+    private static final class Table<K, V> {
+        private static final Object NULL_KEY = new Object();
+
+        /**
+         * [k0, v0, k1, v1, ...]，null key 用 {@link #NULL_KEY} 代替
+         */
+        private final Object[] slots;
+        private final int mask;
+        private final int size;
+
+        Table(Map<? extends K, ? extends V> data) {
+            int n = 0;
+            if (data != null) {
+                for (V v : data.values()) {
+                    if (v != null) {
+                        n++;
+                    }
+                }
+            }
+            int capacity = tableSizeFor(Math.max(2, n * 2));
+            this.slots = new Object[capacity * 2];
+            this.mask = capacity - 1;
+            this.size = n;
+            if (n == 0) {
+                return;
+            }
+            for (Map.Entry<? extends K, ? extends V> entry : data.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                Object k = entry.getKey() == null ? NULL_KEY : entry.getKey();
+                int i = index(k);
+                while (slots[i] != null) {
+                    i = (i + 2) & (slots.length - 1);
+                }
+                slots[i] = k;
+                slots[i + 1] = entry.getValue();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(Object key) {
+            Object k = key == null ? NULL_KEY : key;
+            Object[] s = this.slots;
+            int i = index(k);
+            Object cur;
+            while ((cur = s[i]) != null) {
+                if (cur == k || cur.equals(k)) {
+                    return (V) s[i + 1];
+                }
+                i = (i + 2) & (s.length - 1);
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            Objects.requireNonNull(action);
+            for (int i = 0; i < slots.length; i += 2) {
+                Object k = slots[i];
+                if (k != null) {
+                    action.accept(k == NULL_KEY ? null : (K) k, (V) slots[i + 1]);
+                }
+            }
+        }
+
+        private int index(Object k) {
+            int h = k.hashCode() * 0x9E3779B9;
+            return ((h ^ (h >>> 16)) & mask) << 1;
+        }
+
+        private static int tableSizeFor(int c) {
+            return Integer.highestOneBit(c - 1) << 1;
+        }
+    }
+}
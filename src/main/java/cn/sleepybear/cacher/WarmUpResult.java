@@ -0,0 +1,26 @@
+package cn.sleepybear.cacher;
+
+/**
+ * 预热进度及结果
+ *
+ * @param requested     已读取的 key 数量
+ * @param skipped       已存在而跳过的数量
+ * @param loaded        加载成功并写入缓存的数量
+ * @param missing       加载结果为空的数量
+ * @param failed        加载抛出异常的数量
+ * @param elapsedMillis 耗时，毫秒
+ * @author sleepybear
+ * @date 2026/10/19 17:20
+ */
+public record WarmUpResult(long requested, long skipped, long loaded, long missing, long failed, long elapsedMillis) {
+
+    /**
+     * 每秒处理的 key 数量
+     *
+     * @return 吞吐量
+     */
+    public double throughput() {
+        long done = skipped + loaded + missing + failed;
+        return elapsedMillis <= 0 ? done : done * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,164 @@
+package cn.sleepybear.cacher.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 分段的有损环形缓冲区，多个线程写入，单个线程批量消费<br/>
+ * 写入时按线程分散到不同的段，段满了或者 CAS 竞争失败时直接丢弃，写入方永远不会阻塞
+ *
+ * @author sleepybear
+ * @date 2026/10/19 16:10
+ */
+public class StripedRingBuffer<E> {
+    /**
+     * 写入成功
+     */
+    public static final int SUCCESS = 0;
+    /**
+     * 竞争失败，元素被丢弃
+     */
+    public static final int FAILED = 1;
+    /**
+     * 段已满，元素被丢弃，调用方应当尽快消费
+     */
+    public static final int FULL = 2;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    public StripedRingBuffer() {
+        this(Runtime.getRuntime().availableProcessors() * 2, 32);
+    }
+
+    /**
+     * @param stripes        段数，向上取 2 的幂
+     * @param stripeCapacity 每段的容量，向上取 2 的幂
+     */
+    public StripedRingBuffer(int stripes, int stripeCapacity) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes <= 0!");
+        }
+        if (stripeCapacity <= 0) {
+            throw new IllegalArgumentException("stripeCapacity <= 0!");
+        }
+        int n = ceilingPowerOfTwo(stripes);
+        int capacity = ceilingPowerOfTwo(stripeCapacity);
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new Stripe(capacity);
+        }
+        this.stripeMask = n - 1;
+    }
+
+    /**
+     * 写入元素，null 会被忽略
+     *
+     * @param e 元素
+     * @return {@link #SUCCESS}、{@link #FAILED} 或 {@link #FULL}
+     */
+    public int offer(E e) {
+        if (e == null) {
+            return FAILED;
+        }
+        return stripes[stripeIndex()].offer(e);
+    }
+
+    /**
+     * 消费所有已写入的元素，若已有其他线程在消费则直接返回
+     *
+     * @param consumer 消费者
+     * @return 是否执行了消费
+     */
+    public boolean tryDrain(Consumer<E> consumer) {
+        if (!drainLock.tryLock()) {
+            return false;
+        }
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.drain(consumer);
+            }
+            return true;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * 消费所有已写入的元素，若已有其他线程在消费则等待其结束
+     *
+     * @param consumer 消费者
+     */
+    public void drain(Consumer<E> consumer) {
+        drainLock.lock();
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.drain(consumer);
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private int stripeIndex() {
+        long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & stripeMask;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+    }
+
+    /**
+     * 段内以 Object 保存元素，只有 offer 写入 E，消费时再转换回 E
+     */
+    private static final class Stripe {
+        private final AtomicReferenceArray<Object> buffer;
+        private final int mask;
+        private final AtomicLong readCounter = new AtomicLong(0);
+        private final AtomicLong writeCounter = new AtomicLong(0);
+
+        Stripe(int capacity) {
+            this.buffer = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        int offer(Object e) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            if (tail - head > mask) {
+                return FULL;
+            }
+            if (!writeCounter.compareAndSet(tail, tail + 1)) {
+                return FAILED;
+            }
+            buffer.lazySet((int) (tail & mask), e);
+            return SUCCESS;
+        }
+
+        @SuppressWarnings("unchecked")
+        <E> void drain(Consumer<E> consumer) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            try {
+                while (head < tail) {
+                    int index = (int) (head & mask);
+                    E e = (E) buffer.get(index);
+                    if (e == null) {
+                        // 写入方已占位但还未写入，下次再消费
+                        break;
+                    }
+                    buffer.lazySet(index, null);
+                    head++;
+                    consumer.accept(e);
+                }
+            } finally {
+                readCounter.lazySet(head);
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package cn.sleepybear.cacher.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.util.Collection;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * There is description
@@ -21,6 +28,33 @@ public class CacheObject<T> implements Serializable {
      */
     private T obj;
 
+    /**
+     * 压缩后的缓存对象，不为 null 时 obj 为 null
+     */
+    private byte[] compressedObj;
+
+    /**
+     * 压缩器，为 null 则不压缩
+     */
+    private ValueCompressor<T> compressor;
+
+    /**
+     * 解压后暂存的缓存对象，由 {@link ValueCompressor} 的热点集合维护；
+     * 与解压来源的字节数组绑定，只有来源仍是当前的 compressedObj 时才有效
+     */
+    private transient volatile HotValue<T> hotObj;
+
+    /**
+     * 是否以软引用保存缓存对象，内存不足时可被 GC 回收
+     */
+    private boolean softValue;
+
+    /**
+     * 软引用保存的缓存对象，softValue 为 true 且未压缩时使用，此时 obj 为 null；
+     * 序列化时写出引用的对象，已被回收的反序列化后仍视为已回收
+     */
+    private transient SoftReference<T> softObj;
+
     /**
      * 创建时间
      */
@@ -44,6 +78,11 @@ public class CacheObject<T> implements Serializable {
      */
     private ExpireWayEnum expireWayEnum;
 
+    /**
+     * 标签，用于按组失效，没有标签时为 null
+     */
+    private Set<Object> tags;
+
     /**
      * 访问次数
      */
@@ -80,12 +119,79 @@ public class CacheObject<T> implements Serializable {
      * @param expireWayEnum 过期策略，参见 {@link ExpireWayEnum}
      */
     public CacheObject(T obj, Long expireTime, ExpireWayEnum expireWayEnum) {
-        this.obj = obj;
+        this(obj, expireTime, expireWayEnum, null);
+    }
+
+    /**
+     * 带压缩的构造方法
+     *
+     * @param obj           缓存时间
+     * @param expireTime    过期时间，毫秒
+     * @param expireWayEnum 过期策略，参见 {@link ExpireWayEnum}
+     * @param compressor    压缩器，为 null 则不压缩
+     */
+    public CacheObject(T obj, Long expireTime, ExpireWayEnum expireWayEnum, ValueCompressor<T> compressor) {
+        this(obj, expireTime, expireWayEnum, compressor, false);
+    }
+
+    /**
+     * 带压缩和软引用的构造方法
+     *
+     * @param obj           缓存时间
+     * @param expireTime    过期时间，毫秒
+     * @param expireWayEnum 过期策略，参见 {@link ExpireWayEnum}
+     * @param compressor    压缩器，为 null 则不压缩
+     * @param softValue     是否以软引用保存，内存不足时可被 GC 回收，回收后视为过期
+     */
+    public CacheObject(T obj, Long expireTime, ExpireWayEnum expireWayEnum, ValueCompressor<T> compressor, boolean softValue) {
+        this(obj, compressor == null ? null : compressor.compress(obj), expireTime, expireWayEnum, compressor, softValue);
+    }
+
+    /**
+     * 使用已压缩好的字节的构造方法，用于在锁外完成压缩
+     *
+     * @param obj           缓存时间
+     * @param compressed    compressor 对 obj 压缩的结果，为 null 表示不压缩
+     * @param expireTime    过期时间，毫秒
+     * @param expireWayEnum 过期策略，参见 {@link ExpireWayEnum}
+     * @param compressor    压缩器，为 null 则不压缩
+     * @param softValue     是否以软引用保存，内存不足时可被 GC 回收，回收后视为过期
+     */
+    public CacheObject(T obj, byte[] compressed, Long expireTime, ExpireWayEnum expireWayEnum, ValueCompressor<T> compressor, boolean softValue) {
+        this.compressor = compressor;
+        this.softValue = softValue;
         this.expireTime = expireTime;
         this.expireWayEnum = expireWayEnum;
+        storeObj(obj, compressed);
         initTime(3);
     }
 
+    /**
+     * 保存缓存对象，有压缩器且满足压缩条件时保存压缩后的字节
+     *
+     * @param obj        T
+     * @param compressed 压缩后的字节，为 null 表示不压缩
+     */
+    private void storeObj(T obj, byte[] compressed) {
+        if (this.compressor == null) {
+            compressed = null;
+        }
+        this.hotObj = null;
+        this.softObj = null;
+        if (compressed == null) {
+            if (this.softValue && obj != null) {
+                this.obj = null;
+                this.softObj = new SoftReference<>(obj);
+            } else {
+                this.obj = obj;
+            }
+            this.compressedObj = null;
+        } else {
+            this.obj = null;
+            this.compressedObj = compressed;
+        }
+    }
+
     /**
      * 初始化时间
      *
@@ -104,16 +210,16 @@ public class CacheObject<T> implements Serializable {
     }
 
     /**
-     * 更新次数
+     * 更新次数，更新时访问次数和更新次数都增加，访问时只增加访问次数
      *
      * @param t enum
      */
     private void increaseCount(int t) {
         switch (t) {
             case 2:
-                this.accessCount.incrementAndGet();
-            case 1:
                 this.updateCount.incrementAndGet();
+            case 1:
+                this.accessCount.incrementAndGet();
         }
     }
 
@@ -150,10 +256,23 @@ public class CacheObject<T> implements Serializable {
      * @return 毫秒的时间戳
      */
     public Long getExpireAt() {
+        return getExpireAt(this.expireWayEnum);
+    }
+
+    /**
+     * 按指定的过期策略计算过期的时间点
+     *
+     * @param expireWayEnum 过期策略，为 null 则使用自身的过期策略
+     * @return 过期时间点，毫秒，永不过期返回 null
+     */
+    public Long getExpireAt(ExpireWayEnum expireWayEnum) {
         if (this.expireTime == null) {
             return null;
         }
-        return this.expireTime + switch (this.expireWayEnum) {
+        if (expireWayEnum == null) {
+            expireWayEnum = this.expireWayEnum == null ? ExpireWayEnum.AFTER_CREATE : this.expireWayEnum;
+        }
+        return this.expireTime + switch (expireWayEnum) {
             case AFTER_CREATE -> this.createTime;
             case AFTER_ACCESS -> this.accessTime;
             case AFTER_UPDATE -> this.updateTime;
@@ -175,7 +294,111 @@ public class CacheObject<T> implements Serializable {
     }
 
     public T getObjPure() {
-        return obj;
+        byte[] compressed = this.compressedObj;
+        if (compressed == null) {
+            SoftReference<T> soft = this.softObj;
+            return soft == null ? obj : soft.get();
+        }
+        HotValue<T> hot = this.hotObj;
+        if (hot != null && hot.source() == compressed) {
+            return hot.value();
+        }
+        return compressor.decompress(this, compressed);
+    }
+
+    /**
+     * 当前 value 的快照，之后的更新不影响快照<br/>
+     * 压缩保存且没有暂存的解压结果时，延迟到调用 get 时才解压
+     *
+     * @return Supplier
+     */
+    public Supplier<T> getObjSnapshot() {
+        byte[] compressed = this.compressedObj;
+        if (compressed == null) {
+            T value = getObjPure();
+            return () -> value;
+        }
+        HotValue<T> hot = this.hotObj;
+        if (hot != null && hot.source() == compressed) {
+            T value = hot.value();
+            return () -> value;
+        }
+        ValueCompressor<T> valueCompressor = this.compressor;
+        return () -> valueCompressor.decompress(this, compressed);
+    }
+
+    /**
+     * 软引用保存的缓存对象是否已被 GC 回收
+     *
+     * @return boolean
+     */
+    public boolean isCollected() {
+        SoftReference<T> soft = this.softObj;
+        return soft != null && soft.get() == null;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        SoftReference<T> soft = this.softObj;
+        out.writeBoolean(soft != null);
+        out.writeObject(soft == null ? null : soft.get());
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        boolean soft = in.readBoolean();
+        T referent = (T) in.readObject();
+        if (soft) {
+            // 引用的对象为 null 表示序列化前已被回收，保持已回收的状态
+            this.softObj = new SoftReference<>(referent);
+        }
+    }
+
+    /**
+     * 是否以压缩形式保存
+     *
+     * @return boolean
+     */
+    public boolean isCompressed() {
+        return compressedObj != null;
+    }
+
+    /**
+     * 压缩后的字节数，未压缩返回 -1
+     *
+     * @return int
+     */
+    public int getCompressedSize() {
+        byte[] compressed = this.compressedObj;
+        return compressed == null ? -1 : compressed.length;
+    }
+
+    /**
+     * 是否以软引用保存
+     *
+     * @return boolean
+     */
+    public boolean isSoftValue() {
+        return softValue;
+    }
+
+    /**
+     * 暂存解压结果，若解压期间 value 已被更新，来源不再是当前的 compressedObj，则不暂存
+     *
+     * @param source 解压的来源
+     * @param value  解压结果
+     */
+    void setHotObj(byte[] source, T value) {
+        if (source == this.compressedObj) {
+            this.hotObj = new HotValue<>(source, value);
+        }
+    }
+
+    void clearHotObj() {
+        this.hotObj = null;
     }
 
     public CacheObject<T> getCacheObject() {
@@ -184,6 +407,19 @@ public class CacheObject<T> implements Serializable {
         return this;
     }
 
+    /**
+     * 补记一次访问，用于读路径先缓冲、再由维护线程批量回放访问的场景<br/>
+     * 访问时间只会前进，不会被更早的时间覆盖
+     *
+     * @param accessTime 访问时间
+     */
+    public void recordAccess(long accessTime) {
+        if (accessTime > this.accessTime) {
+            this.accessTime = accessTime;
+        }
+        increaseCount(1);
+    }
+
     /**
      * 更新缓存对象<br/>
      * 需要更新一次访问和更新次数，以及时间
@@ -191,7 +427,17 @@ public class CacheObject<T> implements Serializable {
      * @param obj T
      */
     public void setObj(T obj, Long expireTime, ExpireWayEnum expireWayEnum) {
-        this.obj = obj;
+        setObj(obj, this.compressor == null ? null : this.compressor.compress(obj), expireTime, expireWayEnum);
+    }
+
+    /**
+     * 使用已压缩好的字节更新缓存对象，用于在锁外完成压缩
+     *
+     * @param obj        T
+     * @param compressed 压缩器对 obj 压缩的结果，为 null 表示不压缩
+     */
+    public void setObj(T obj, byte[] compressed, Long expireTime, ExpireWayEnum expireWayEnum) {
+        storeObj(obj, compressed);
         if (expireTime != null) {
             this.expireTime = expireTime;
         }
@@ -206,6 +452,22 @@ public class CacheObject<T> implements Serializable {
         return createTime;
     }
 
+    public long getAccessTime() {
+        return accessTime;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public int getAccessCount() {
+        return accessCount.get();
+    }
+
+    public int getUpdateCount() {
+        return updateCount.get();
+    }
+
     public Long getExpireTime() {
         return expireTime;
     }
@@ -218,6 +480,40 @@ public class CacheObject<T> implements Serializable {
         return expireWayEnum;
     }
 
+    /**
+     * 标签，不可修改
+     *
+     * @return 没有标签时返回空集合
+     */
+    public Set<Object> getTags() {
+        Set<Object> t = this.tags;
+        return t == null ? Set.of() : t;
+    }
+
+    public boolean hasTags() {
+        return tags != null;
+    }
+
+    public boolean hasTag(Object tag) {
+        Set<Object> t = this.tags;
+        return t != null && t.contains(tag);
+    }
+
+    /**
+     * 设置标签，放入 Cacher 之后请通过 Cacher 修改，否则标签索引不会更新
+     *
+     * @param tags 标签，不能包含 null，为 null 或空表示没有标签
+     */
+    public void setTags(Collection<?> tags) {
+        this.tags = tags == null || tags.isEmpty() ? null : Set.copyOf(tags);
+    }
+
+    /**
+     * 解压结果及其来源，整体不可变
+     */
+    private record HotValue<T>(byte[] source, T value) {
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -229,11 +525,12 @@ public class CacheObject<T> implements Serializable {
 
         CacheObject<?> that = (CacheObject<?>) o;
 
-        return Objects.equals(obj, that.obj);
+        return Objects.equals(getObjPure(), that.getObjPure());
     }
 
     @Override
     public int hashCode() {
-        return obj != null ? obj.hashCode() : 0;
+        T t = getObjPure();
+        return t != null ? t.hashCode() : 0;
     }
 }
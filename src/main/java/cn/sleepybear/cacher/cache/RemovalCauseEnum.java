@@ -0,0 +1,30 @@
+package cn.sleepybear.cacher.cache;
+
+/**
+ * 缓存被删除的原因
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:20
+ */
+public enum RemovalCauseEnum {
+    /**
+     * 主动删除
+     */
+    EXPLICIT,
+    /**
+     * 过期
+     */
+    EXPIRED,
+    /**
+     * 软引用被 GC 回收
+     */
+    COLLECTED,
+    /**
+     * 因内存或容量被淘汰
+     */
+    EVICTED,
+    /**
+     * 按标签失效
+     */
+    INVALIDATED,
+}
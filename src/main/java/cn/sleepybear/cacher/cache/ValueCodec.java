@@ -0,0 +1,108 @@
+package cn.sleepybear.cacher.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 缓存值与字节数组之间的编解码器，压缩模式下用于把 value 转换成字节后再压缩
+ *
+ * @author sleepybear
+ * @date 2026/10/19 15:30
+ */
+public interface ValueCodec<V> extends Serializable {
+
+    /**
+     * 编码
+     *
+     * @param value value
+     * @return 字节数组，返回 null 表示该 value 不压缩
+     */
+    byte[] encode(V value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 字节数组
+     * @return value
+     */
+    V decode(byte[] bytes);
+
+    /**
+     * UTF-8 字符串编解码器
+     *
+     * @return ValueCodec
+     */
+    static ValueCodec<String> string() {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(String value) {
+                return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * 字节数组编解码器，原样返回
+     *
+     * @return ValueCodec
+     */
+    static ValueCodec<byte[]> bytes() {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(byte[] value) {
+                return value;
+            }
+
+            @Override
+            public byte[] decode(byte[] bytes) {
+                return bytes;
+            }
+        };
+    }
+
+    /**
+     * 基于 Java 序列化的编解码器，value 不是 {@link Serializable} 时不压缩
+     *
+     * @return ValueCodec
+     */
+    static <V> ValueCodec<V> serializable() {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(V value) {
+                if (!(value instanceof Serializable)) {
+                    return null;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                    oos.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V decode(byte[] bytes) {
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (V) ois.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
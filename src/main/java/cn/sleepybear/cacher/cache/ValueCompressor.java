@@ -0,0 +1,202 @@
+package cn.sleepybear.cacher.cache;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 缓存值压缩器，超过阈值的 value 使用 {@link Deflater} 压缩后保存，读取时再用 {@link Inflater} 懒解压<br/>
+ * 压缩和解压都在 {@link CacheObject} 上完成，不会持有 Map 的锁
+ *
+ * @author sleepybear
+ * @date 2026/10/19 15:30
+ */
+public class ValueCompressor<V> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4412859311570230741L;
+
+    /**
+     * 编解码器
+     */
+    private final ValueCodec<V> codec;
+
+    /**
+     * 编码后字节数达到该阈值才压缩
+     */
+    private final int threshold;
+
+    /**
+     * 压缩级别，参见 {@link Deflater#setLevel(int)}
+     */
+    private final int level;
+
+    /**
+     * 已解压的热点缓存数量，0 表示不保留
+     */
+    private final int hotSetSize;
+
+    /**
+     * 保留了解压结果的缓存对象，环形覆盖，被挤出的对象会释放解压结果
+     */
+    private transient AtomicReferenceArray<CacheObject<V>> hotSet;
+    private transient AtomicInteger hotIndex;
+
+    public ValueCompressor(ValueCodec<V> codec, int threshold) {
+        this(codec, threshold, Deflater.BEST_SPEED, 0);
+    }
+
+    public ValueCompressor(ValueCodec<V> codec, int threshold, int level, int hotSetSize) {
+        if (codec == null) {
+            throw new IllegalArgumentException("codec can not be null!");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold < 0!");
+        }
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Illegal compression level: " + level);
+        }
+        if (hotSetSize < 0) {
+            throw new IllegalArgumentException("hotSetSize < 0!");
+        }
+        this.codec = codec;
+        this.threshold = threshold;
+        this.level = level;
+        this.hotSetSize = hotSetSize;
+        initHotSet();
+    }
+
+    private void initHotSet() {
+        if (this.hotSetSize > 0) {
+            this.hotSet = new AtomicReferenceArray<>(this.hotSetSize);
+            this.hotIndex = new AtomicInteger(0);
+        }
+    }
+
+    /**
+     * 压缩 value
+     *
+     * @param value value
+     * @return 压缩后的字节，不需要压缩或者压缩无收益时返回 null
+     */
+    public byte[] compress(V value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = codec.encode(value);
+        if (bytes == null || bytes.length < threshold) {
+            return null;
+        }
+        byte[] deflated = deflate(bytes, level);
+        return deflated.length < bytes.length ? deflated : null;
+    }
+
+    /**
+     * 解压 value，若开启了热点集合，则把解压结果暂存在缓存对象上
+     *
+     * @param cacheObject 缓存对象
+     * @param compressed  压缩后的字节
+     * @return value
+     */
+    public V decompress(CacheObject<V> cacheObject, byte[] compressed) {
+        V value = codec.decode(inflate(compressed));
+        AtomicReferenceArray<CacheObject<V>> hot = this.hotSet;
+        if (hot != null) {
+            cacheObject.setHotObj(compressed, value);
+            int i = Math.floorMod(hotIndex.getAndIncrement(), hotSetSize);
+            CacheObject<V> old = hot.getAndSet(i, cacheObject);
+            if (old != null && old != cacheObject) {
+                old.clearHotObj();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 压缩字节，前 4 个字节记录原始长度
+     */
+    static byte[] deflate(byte[] bytes, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buf = new byte[Math.max(64, bytes.length / 2) + 4];
+            int len = 4;
+            while (!deflater.finished()) {
+                if (len == buf.length) {
+                    byte[] bigger = new byte[buf.length * 2];
+                    System.arraycopy(buf, 0, bigger, 0, len);
+                    buf = bigger;
+                }
+                len += deflater.deflate(buf, len, buf.length - len);
+            }
+            writeInt(buf, bytes.length);
+            byte[] result = new byte[len];
+            System.arraycopy(buf, 0, result, 0, len);
+            return result;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, 4, compressed.length - 4);
+            byte[] result = new byte[readInt(compressed)];
+            int len = 0;
+            while (len < result.length && !inflater.finished()) {
+                int n = inflater.inflate(result, len, result.length - len);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += n;
+            }
+            if (len != result.length) {
+                throw new IllegalStateException("compressed value is corrupted, expect " + result.length + " bytes but got " + len);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("compressed value is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeInt(byte[] buf, int v) {
+        buf[0] = (byte) (v >>> 24);
+        buf[1] = (byte) (v >>> 16);
+        buf[2] = (byte) (v >>> 8);
+        buf[3] = (byte) v;
+    }
+
+    private static int readInt(byte[] buf) {
+        return ((buf[0] & 0xFF) << 24) | ((buf[1] & 0xFF) << 16) | ((buf[2] & 0xFF) << 8) | (buf[3] & 0xFF);
+    }
+
+    @Serial
+    private Object readResolve() {
+        initHotSet();
+        return this;
+    }
+
+    public ValueCodec<V> getCodec() {
+        return codec;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getHotSetSize() {
+        return hotSetSize;
+    }
+}
@@ -0,0 +1,108 @@
+package cn.sleepybear.cacher.event;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 缓存变更事件<br/>
+ * value 可以延迟求值，压缩保存的 value 在订阅方第一次调用 {@link #value()} 时才解压，写入线程不需要为事件解压
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:50
+ */
+public final class CacheEvent<K, V> {
+
+    private final String cacheName;
+    private final CacheEventTypeEnum type;
+    private final K key;
+    private final long timestamp;
+
+    /**
+     * 尚未求值的 value，求值后置为 null
+     */
+    private volatile Supplier<? extends V> valueSupplier;
+    private volatile V value;
+
+    /**
+     * @param cacheName 缓存名称
+     * @param type      事件类型
+     * @param key       key
+     * @param value     PUT、UPDATE 为新的 value，其余为被删除的 value，软引用被回收时为 null
+     * @param timestamp 事件时间，毫秒
+     */
+    public CacheEvent(String cacheName, CacheEventTypeEnum type, K key, V value, long timestamp) {
+        this.cacheName = cacheName;
+        this.type = type;
+        this.key = key;
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @param cacheName     缓存名称
+     * @param type          事件类型
+     * @param key           key
+     * @param valueSupplier 第一次调用 {@link #value()} 时求值，需要返回事件发生时的 value 快照
+     * @param timestamp     事件时间，毫秒
+     */
+    public CacheEvent(String cacheName, CacheEventTypeEnum type, K key, Supplier<? extends V> valueSupplier, long timestamp) {
+        this.cacheName = cacheName;
+        this.type = type;
+        this.key = key;
+        this.valueSupplier = Objects.requireNonNull(valueSupplier);
+        this.timestamp = timestamp;
+    }
+
+    public String cacheName() {
+        return cacheName;
+    }
+
+    public CacheEventTypeEnum type() {
+        return type;
+    }
+
+    public K key() {
+        return key;
+    }
+
+    /**
+     * PUT、UPDATE 为新的 value，其余为被删除的 value，软引用被回收时为 null<br/>
+     * 多个订阅方并发求值时可能重复解压，结果相同
+     *
+     * @return V
+     */
+    public V value() {
+        Supplier<? extends V> supplier = this.valueSupplier;
+        if (supplier != null) {
+            this.value = supplier.get();
+            this.valueSupplier = null;
+        }
+        return this.value;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheEvent<?, ?> that)) {
+            return false;
+        }
+        return timestamp == that.timestamp && type == that.type && Objects.equals(cacheName, that.cacheName)
+                && Objects.equals(key, that.key) && Objects.equals(value(), that.value());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cacheName, type, key, value(), timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheEvent[cacheName=" + cacheName + ", type=" + type + ", key=" + key + ", value=" + value() + ", timestamp=" + timestamp + "]";
+    }
+}
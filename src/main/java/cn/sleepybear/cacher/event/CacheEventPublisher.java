@@ -0,0 +1,371 @@
+package cn.sleepybear.cacher.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 缓存变更事件的发布者<br/>
+ * 每个订阅者有独立的有界缓冲区，写缓存的线程只把事件放入缓冲区，投递在 executor 中按订阅者的 request 进行，
+ * 慢订阅者只会让自己的缓冲区溢出，不影响其他订阅者；溢出时按 {@link OverflowPolicyEnum} 处理。
+ * 没有订阅者时 {@link #hasSubscribers()} 为 false，缓存不会创建事件
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:50
+ */
+public class CacheEventPublisher<K, V> implements Flow.Publisher<CacheEvent<K, V>>, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CacheEventPublisher.class);
+
+    private final Executor executor;
+    private final int defaultBufferSize;
+    private final OverflowPolicyEnum defaultOverflowPolicy;
+
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+
+    public CacheEventPublisher() {
+        this(ForkJoinPool.commonPool(), 256, OverflowPolicyEnum.DROP);
+    }
+
+    /**
+     * @param executor              投递事件的线程池，BLOCK 策略下不能是在调用线程中直接执行的 Executor
+     * @param defaultBufferSize     默认的订阅者缓冲区大小
+     * @param defaultOverflowPolicy 默认的溢出策略
+     */
+    public CacheEventPublisher(Executor executor, int defaultBufferSize, OverflowPolicyEnum defaultOverflowPolicy) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor can not be null!");
+        }
+        if (defaultBufferSize <= 0) {
+            throw new IllegalArgumentException("defaultBufferSize <= 0!");
+        }
+        if (defaultOverflowPolicy == null) {
+            throw new IllegalArgumentException("defaultOverflowPolicy can not be null!");
+        }
+        this.executor = executor;
+        this.defaultBufferSize = defaultBufferSize;
+        this.defaultOverflowPolicy = defaultOverflowPolicy;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CacheEvent<K, V>> subscriber) {
+        subscribe(subscriber, defaultBufferSize, defaultOverflowPolicy);
+    }
+
+    /**
+     * 使用指定的缓冲区大小和溢出策略订阅
+     *
+     * @param subscriber     订阅者
+     * @param bufferSize     缓冲区大小
+     * @param overflowPolicy 溢出策略
+     * @return 订阅，可用于查询丢弃的事件数量
+     */
+    public EventSubscription subscribe(Flow.Subscriber<? super CacheEvent<K, V>> subscriber, int bufferSize, OverflowPolicyEnum overflowPolicy) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber can not be null!");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize <= 0!");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy can not be null!");
+        }
+        EventSubscription subscription = new EventSubscription(subscriber, bufferSize, overflowPolicy);
+        if (closed) {
+            subscription.completed = true;
+        } else {
+            subscriptions.add(subscription);
+        }
+        // 在 executor 中先调用 onSubscribe，再开始投递
+        subscription.schedule();
+        return subscription;
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int getNumberOfSubscribers() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 发布事件到所有订阅者的缓冲区，BLOCK 策略的订阅者缓冲区满时阻塞
+     *
+     * @param event 事件
+     */
+    public void publish(CacheEvent<K, V> event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * 所有订阅者在收完已缓冲的事件后收到 onComplete，之后的订阅直接完成
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * 关闭后重新开放订阅，已完成的订阅者不会再收到事件，需要重新订阅
+     */
+    public void reopen() {
+        subscriptions.removeIf(subscription -> subscription.completed);
+        closed = false;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 单个订阅者的缓冲区和投递状态，投递使用 wip 计数保证同一时刻只有一个线程在投递
+     */
+    public final class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super CacheEvent<K, V>> subscriber;
+        private final int capacity;
+        private final OverflowPolicyEnum overflowPolicy;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+
+        /**
+         * DROP、BLOCK 使用 queue，COALESCE 使用以 key 去重的 pending，都只在持有 lock 时访问
+         */
+        private final ArrayDeque<CacheEvent<K, V>> queue;
+        private final LinkedHashMap<Object, CacheEvent<K, V>> pending;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final LongAdder dropped = new LongAdder();
+
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        /**
+         * 只在投递线程中访问
+         */
+        private boolean subscribed;
+
+        private EventSubscription(Flow.Subscriber<? super CacheEvent<K, V>> subscriber, int capacity, OverflowPolicyEnum overflowPolicy) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+            this.queue = overflowPolicy == OverflowPolicyEnum.COALESCE ? null : new ArrayDeque<>(Math.min(capacity, 1024));
+            this.pending = overflowPolicy == OverflowPolicyEnum.COALESCE ? new LinkedHashMap<>() : null;
+        }
+
+        void offer(CacheEvent<K, V> event) {
+            lock.lock();
+            try {
+                if (cancelled || completed) {
+                    return;
+                }
+                if (pending != null) {
+                    if (!pending.containsKey(event.key()) && pending.size() >= capacity) {
+                        dropped.increment();
+                        return;
+                    }
+                    // 已在缓冲区中的 key 保持原来的位置，只替换为最新的事件
+                    if (pending.put(event.key(), event) != null) {
+                        dropped.increment();
+                    }
+                } else {
+                    while (queue.size() >= capacity) {
+                        if (overflowPolicy == OverflowPolicyEnum.DROP) {
+                            dropped.increment();
+                            return;
+                        }
+                        notFull.await();
+                        if (cancelled || completed) {
+                            return;
+                        }
+                    }
+                    queue.add(event);
+                }
+            } catch (InterruptedException e) {
+                dropped.increment();
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            schedule();
+        }
+
+        private CacheEvent<K, V> poll() {
+            lock.lock();
+            try {
+                CacheEvent<K, V> event;
+                if (pending != null) {
+                    Iterator<Map.Entry<Object, CacheEvent<K, V>>> iterator = pending.entrySet().iterator();
+                    if (!iterator.hasNext()) {
+                        return null;
+                    }
+                    event = iterator.next().getValue();
+                    iterator.remove();
+                } else {
+                    event = queue.poll();
+                }
+                if (event != null) {
+                    notFull.signal();
+                }
+                return event;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isEmpty() {
+            lock.lock();
+            try {
+                return pending != null ? pending.isEmpty() : queue.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void complete() {
+            completed = true;
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.warn("cache event executor rejected, cancel subscription", e);
+                cancel();
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            if (!subscribed) {
+                subscribed = true;
+                try {
+                    subscriber.onSubscribe(this);
+                } catch (Throwable t) {
+                    log.warn("cache event subscriber onSubscribe error", t);
+                    cancel();
+                    return;
+                }
+            }
+            while (true) {
+                long r = requested.get();
+                long emitted = 0;
+                while (emitted != r && !cancelled) {
+                    CacheEvent<K, V> event = poll();
+                    if (event == null) {
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(event);
+                    } catch (Throwable t) {
+                        log.warn("cache event subscriber onNext error, cancel subscription", t);
+                        cancel();
+                        return;
+                    }
+                    emitted++;
+                }
+                if (cancelled) {
+                    return;
+                }
+                Throwable e = error;
+                if (e != null) {
+                    cancel();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (completed && isEmpty()) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("non-positive request: " + n);
+            } else {
+                long r;
+                do {
+                    r = requested.get();
+                    if (r == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!requested.compareAndSet(r, r + n < 0 ? Long.MAX_VALUE : r + n));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            subscriptions.remove(this);
+            lock.lock();
+            try {
+                if (pending != null) {
+                    pending.clear();
+                } else {
+                    queue.clear();
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 因缓冲区满被丢弃或被合并的事件数量
+         *
+         * @return 数量
+         */
+        public long getDropped() {
+            return dropped.sum();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package cn.sleepybear.cacher.event;
+
+/**
+ * 缓存变更事件类型
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:50
+ */
+public enum CacheEventTypeEnum {
+    /**
+     * 新增缓存，包括 load 后写入
+     */
+    PUT,
+    /**
+     * 覆盖或修改已存在的缓存
+     */
+    UPDATE,
+    /**
+     * 过期或软引用被回收
+     */
+    EXPIRE,
+    /**
+     * 主动删除，包括按标签失效
+     */
+    REMOVE,
+    /**
+     * 因内存或容量被淘汰
+     */
+    EVICT,
+}
@@ -0,0 +1,22 @@
+package cn.sleepybear.cacher.event;
+
+/**
+ * 订阅者缓冲区满时的处理方式
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:50
+ */
+public enum OverflowPolicyEnum {
+    /**
+     * 丢弃新事件
+     */
+    DROP,
+    /**
+     * 同一个 key 未投递的事件只保留最新的一个，缓冲区满且 key 不在缓冲区中时丢弃新事件
+     */
+    COALESCE,
+    /**
+     * 阻塞写缓存的线程，直到订阅者消费出空位，慢订阅者会拖慢 put，谨慎使用
+     */
+    BLOCK,
+}
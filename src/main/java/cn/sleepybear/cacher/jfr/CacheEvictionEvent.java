@@ -0,0 +1,29 @@
+package cn.sleepybear.cacher.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 缓存淘汰事件，包括容量淘汰、内存压力淘汰以及按标签失效；软引用被回收的缓存记为 {@link CacheExpirationEvent}
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:20
+ */
+@Name("cn.sleepybear.cacher.CacheEviction")
+@Label("Cache Eviction")
+@Category("Cacher")
+@Description("Entry removed before its expiry")
+@StackTrace(false)
+public class CacheEvictionEvent extends jdk.jfr.Event {
+    @Label("Cache Name")
+    public String cacheName;
+
+    @Label("Key Type")
+    public String keyType;
+
+    @Label("Cause")
+    public String cause;
+}
@@ -0,0 +1,38 @@
+package cn.sleepybear.cacher.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 缓存过期删除事件
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:20
+ */
+@Name("cn.sleepybear.cacher.CacheExpiration")
+@Label("Cache Expiration")
+@Category("Cacher")
+@Description("Expired entry removed")
+@StackTrace(false)
+public class CacheExpirationEvent extends jdk.jfr.Event {
+    @Label("Cache Name")
+    public String cacheName;
+
+    @Label("Key Type")
+    public String keyType;
+
+    /**
+     * EXPIRED 或 COLLECTED
+     */
+    @Label("Cause")
+    public String cause;
+
+    /**
+     * 是否由清理任务删除，false 表示读取时发现过期
+     */
+    @Label("By Sweep")
+    public boolean bySweep;
+}
@@ -0,0 +1,35 @@
+package cn.sleepybear.cacher.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 缓存加载事件，持续时间即 loader 的耗时
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:20
+ */
+@Name("cn.sleepybear.cacher.CacheLoad")
+@Label("Cache Load")
+@Category("Cacher")
+@Description("CacherValueLoader or CacherBulkValueLoader invocation")
+@StackTrace(false)
+public class CacheLoadEvent extends jdk.jfr.Event {
+    @Label("Cache Name")
+    public String cacheName;
+
+    @Label("Key Type")
+    public String keyType;
+
+    @Label("Key Count")
+    public int keyCount;
+
+    /**
+     * SUCCESS、EMPTY 或 FAILURE
+     */
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,35 @@
+package cn.sleepybear.cacher.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 过期清理事件，持续时间即一次清理的耗时
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:20
+ */
+@Name("cn.sleepybear.cacher.ExpireSweep")
+@Label("Expire Sweep")
+@Category("Cacher")
+@Description("One run of the expire task")
+@StackTrace(false)
+public class ExpireSweepEvent extends jdk.jfr.Event {
+    @Label("Cache Name")
+    public String cacheName;
+
+    /**
+     * FULL 或 ADAPTIVE
+     */
+    @Label("Mode")
+    public String mode;
+
+    @Label("Scanned")
+    public long scanned;
+
+    @Label("Removed")
+    public long removed;
+}
@@ -0,0 +1,22 @@
+package cn.sleepybear.cacher.loader;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 需要自行实现，批量加载缓存，预热时优先使用，一次加载一批 key 以减少后端的请求次数
+ *
+ * @author sleepybear
+ * @date 2026/10/19 17:20
+ */
+@FunctionalInterface
+public interface CacherBulkValueLoader<K, V> {
+
+    /**
+     * 批量加载缓存
+     *
+     * @param keys keys
+     * @return key 到 value 的映射，没有值的 key 可以不返回
+     */
+    Map<K, V> loadAll(Collection<K> keys);
+}
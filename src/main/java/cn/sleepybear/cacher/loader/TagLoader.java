@@ -0,0 +1,21 @@
+package cn.sleepybear.cacher.loader;
+
+import java.util.Collection;
+
+/**
+ * 需要自行实现，当缓存过期时，自动加载新的缓存的时候，会调用这个接口，获取缓存的标签
+ *
+ * @author sleepybear
+ * @date 2026/10/19 18:10
+ */
+@FunctionalInterface
+public interface TagLoader<K> {
+
+    /**
+     * 获取缓存的标签
+     *
+     * @param key key
+     * @return 标签，没有标签返回 null
+     */
+    Collection<?> getLoadTags(K key);
+}
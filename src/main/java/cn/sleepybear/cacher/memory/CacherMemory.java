@@ -0,0 +1,150 @@
+package cn.sleepybear.cacher.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * {@link CacherMemoryMXBean} 的实现，监控系统频繁读取各个属性时只在刷新间隔到期后重新估算一次
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:30
+ */
+public class CacherMemory implements CacherMemoryMXBean {
+    private static final Logger log = LoggerFactory.getLogger(CacherMemory.class);
+
+    public static final String DOMAIN = "cn.sleepybear.cacher";
+
+    private final String name;
+    private final Supplier<MemoryReport> estimator;
+    private volatile long refreshIntervalMillis = 10_000L;
+    private volatile MemoryReport report;
+    private volatile long reportTime;
+    private ObjectName objectName;
+
+    /**
+     * @param name      缓存名称
+     * @param estimator 估算方法
+     */
+    public CacherMemory(String name, Supplier<MemoryReport> estimator) {
+        this.name = name;
+        this.estimator = estimator;
+    }
+
+    /**
+     * 注册到平台 MBeanServer，同名的 MBean 已存在时只打印警告
+     *
+     * @return 是否注册成功
+     */
+    public synchronized boolean register() {
+        if (objectName != null) {
+            return true;
+        }
+        try {
+            ObjectName on = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+            this.objectName = on;
+            return true;
+        } catch (InstanceAlreadyExistsException e) {
+            log.warn("[{}] MBean already registered, skip", name);
+        } catch (JMException e) {
+            log.warn("[{}] register MBean error", name, e);
+        }
+        return false;
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException ignored) {
+            // 已经被外部取消注册
+        } catch (JMException e) {
+            log.warn("[{}] unregister MBean error", name, e);
+        }
+        objectName = null;
+    }
+
+    public static ObjectName objectName(String name) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=Cacher,name=" + ObjectName.quote(String.valueOf(name)));
+    }
+
+    private MemoryReport report() {
+        MemoryReport r = this.report;
+        if (r == null || System.currentTimeMillis() - reportTime >= refreshIntervalMillis) {
+            refresh();
+            r = this.report;
+        }
+        return r;
+    }
+
+    @Override
+    public void refresh() {
+        this.report = estimator.get();
+        this.reportTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getSize() {
+        return report().entries();
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return report().totalBytes();
+    }
+
+    @Override
+    public long getEstimatedOverheadBytes() {
+        return report().overheadBytes();
+    }
+
+    @Override
+    public long getEstimatedKeyBytes() {
+        return report().keyBytes();
+    }
+
+    @Override
+    public long getEstimatedValueBytes() {
+        return report().valueBytes();
+    }
+
+    @Override
+    public long getAverageEntryBytes() {
+        return report().averageEntryBytes();
+    }
+
+    @Override
+    public long getSampledEntries() {
+        return report().sampledEntries();
+    }
+
+    @Override
+    public long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    @Override
+    public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+        if (refreshIntervalMillis < 0) {
+            throw new IllegalArgumentException("refreshIntervalMillis < 0!");
+        }
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+}
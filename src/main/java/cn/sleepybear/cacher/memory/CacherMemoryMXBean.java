@@ -0,0 +1,40 @@
+package cn.sleepybear.cacher.memory;
+
+/**
+ * 缓存内存占用的 JMX 接口，注册在 cn.sleepybear.cacher:type=Cacher,name=缓存名称 下
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:30
+ */
+public interface CacherMemoryMXBean {
+
+    String getName();
+
+    long getSize();
+
+    long getEstimatedBytes();
+
+    long getEstimatedOverheadBytes();
+
+    long getEstimatedKeyBytes();
+
+    long getEstimatedValueBytes();
+
+    long getAverageEntryBytes();
+
+    long getSampledEntries();
+
+    /**
+     * 两次估算之间的最小间隔，间隔内的读取返回上一次的结果
+     *
+     * @return 毫秒
+     */
+    long getRefreshIntervalMillis();
+
+    void setRefreshIntervalMillis(long refreshIntervalMillis);
+
+    /**
+     * 立即重新估算
+     */
+    void refresh();
+}
@@ -0,0 +1,18 @@
+package cn.sleepybear.cacher.memory;
+
+/**
+ * 堆内存压力回调，参见 {@link MemoryPressureMonitor}
+ *
+ * @author sleepybear
+ * @date 2026/10/19 18:40
+ */
+@FunctionalInterface
+public interface MemoryPressureListener {
+
+    /**
+     * 堆使用率超过阈值时回调
+     *
+     * @param pressure 当前堆使用率，[0, 1]
+     */
+    void onMemoryPressure(double pressure);
+}
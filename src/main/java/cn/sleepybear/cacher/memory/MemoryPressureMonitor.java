@@ -0,0 +1,248 @@
+package cn.sleepybear.cacher.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 堆内存压力监控，JVM 内全局唯一<br/>
+ * 订阅老年代等内存池的使用率阈值通知以及 GC 结束通知，当 GC 后的堆使用率超过某个注册方的阈值时回调该注册方。
+ * 内存池的阈值是全局的，所以取所有注册方中最小的阈值<br/>
+ * 注意：有注册方期间会覆盖内存池原有的使用率阈值，其他代码设置的阈值会失效；最后一个注册方取消注册后恢复为注册前的阈值
+ *
+ * @author sleepybear
+ * @date 2026/10/19 18:40
+ */
+public final class MemoryPressureMonitor {
+    private static final Logger log = LoggerFactory.getLogger(MemoryPressureMonitor.class);
+
+    /**
+     * GC 结束通知的类型，参见 com.sun.management.GarbageCollectionNotificationInfo
+     */
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+    private static final MemoryPressureMonitor INSTANCE = new MemoryPressureMonitor();
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    private final NotificationListener notificationListener = this::handleNotification;
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    /**
+     * 订阅前内存池原有的阈值，key 为内存池名称，value 为 [使用率阈值, GC 后使用率阈值]
+     */
+    private final Map<String, long[]> originalThresholds = new HashMap<>();
+
+    private MemoryPressureMonitor() {
+    }
+
+    public static MemoryPressureMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册监听
+     *
+     * @param threshold 堆使用率阈值，(0, 1)
+     * @param listener  超过阈值时的回调，参数为当前堆使用率，在通知线程中执行，不要做耗时操作
+     * @return 注册信息，用于取消注册
+     */
+    public synchronized Registration register(double threshold, MemoryPressureListener listener) {
+        if (threshold <= 0 || threshold >= 1 || Double.isNaN(threshold)) {
+            throw new IllegalArgumentException("Illegal threshold: " + threshold);
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener can not be null!");
+        }
+        Registration registration = new Registration(threshold, listener);
+        registrations.add(registration);
+        if (emitters.isEmpty()) {
+            saveThresholds();
+            subscribe();
+        }
+        applyThreshold();
+        return registration;
+    }
+
+    /**
+     * 取消注册，没有注册方之后取消所有 JMX 订阅，并恢复内存池原有的阈值
+     *
+     * @param registration 注册信息
+     */
+    public synchronized void unregister(Registration registration) {
+        if (!registrations.remove(registration)) {
+            return;
+        }
+        if (registrations.isEmpty()) {
+            unsubscribe();
+            restoreThresholds();
+            return;
+        }
+        applyThreshold();
+    }
+
+    /**
+     * 当前堆使用率，取支持使用率阈值的堆内存池（通常是老年代）中最高的使用率，没有这样的内存池时使用整个堆的使用率<br/>
+     * 优先使用最近一次 GC 后的使用量，GC 前的使用量包含尚未回收的垃圾，不能反映真实的压力
+     *
+     * @return [0, 1]
+     */
+    public double currentPressure() {
+        double pressure = -1;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid() || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null || usage.getMax() <= 0 || usage.getUsed() <= 0) {
+                // 还没有发生过 GC
+                usage = pool.getUsage();
+            }
+            if (usage != null && usage.getMax() > 0) {
+                pressure = Math.max(pressure, (double) usage.getUsed() / usage.getMax());
+            }
+        }
+        if (pressure < 0) {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+            pressure = max <= 0 ? 0 : (double) heap.getUsed() / max;
+        }
+        return Math.min(1, pressure);
+    }
+
+    private void subscribe() {
+        if (ManagementFactory.getMemoryMXBean() instanceof NotificationEmitter emitter) {
+            emitter.addNotificationListener(notificationListener, null, null);
+            emitters.add(emitter);
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(notificationListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    private void unsubscribe() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(notificationListener);
+            } catch (ListenerNotFoundException ignored) {
+                // 已经移除
+            }
+        }
+        emitters.clear();
+    }
+
+    private void applyThreshold() {
+        double min = 1;
+        for (Registration registration : registrations) {
+            min = Math.min(min, registration.threshold);
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            long max = pool.getUsage().getMax();
+            if (max <= 0) {
+                continue;
+            }
+            long threshold = (long) (max * min);
+            try {
+                if (pool.isUsageThresholdSupported()) {
+                    pool.setUsageThreshold(threshold);
+                }
+                if (pool.isCollectionUsageThresholdSupported()) {
+                    pool.setCollectionUsageThreshold(threshold);
+                }
+            } catch (RuntimeException e) {
+                log.warn("set usage threshold of memory pool {} failed", pool.getName(), e);
+            }
+        }
+    }
+
+    private void saveThresholds() {
+        originalThresholds.clear();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            long usageThreshold = pool.isUsageThresholdSupported() ? pool.getUsageThreshold() : -1;
+            long collectionThreshold = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsageThreshold() : -1;
+            originalThresholds.put(pool.getName(), new long[]{usageThreshold, collectionThreshold});
+        }
+    }
+
+    private void restoreThresholds() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long[] original = originalThresholds.get(pool.getName());
+            if (original == null || !pool.isValid()) {
+                continue;
+            }
+            try {
+                if (original[0] >= 0) {
+                    pool.setUsageThreshold(original[0]);
+                }
+                if (original[1] >= 0) {
+                    pool.setCollectionUsageThreshold(original[1]);
+                }
+            } catch (RuntimeException e) {
+                log.warn("restore usage threshold of memory pool {} failed", pool.getName(), e);
+            }
+        }
+        originalThresholds.clear();
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (!MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+                && !MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)
+                && !GC_NOTIFICATION.equals(type)) {
+            return;
+        }
+        double pressure = currentPressure();
+        for (Registration registration : registrations) {
+            if (pressure < registration.threshold) {
+                continue;
+            }
+            try {
+                registration.listener.onMemoryPressure(pressure);
+            } catch (RuntimeException e) {
+                log.warn("memory pressure listener error", e);
+            }
+        }
+    }
+
+    /**
+     * 注册信息
+     */
+    public static final class Registration {
+        private final double threshold;
+        private final MemoryPressureListener listener;
+
+        private Registration(double threshold, MemoryPressureListener listener) {
+            this.threshold = threshold;
+            this.listener = listener;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+    }
+}
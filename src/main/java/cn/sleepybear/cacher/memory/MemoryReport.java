@@ -0,0 +1,44 @@
+package cn.sleepybear.cacher.memory;
+
+/**
+ * 单个缓存的内存占用估算结果，抽样时按抽样的平均值推算全部缓存
+ *
+ * @param cacheName      缓存名称
+ * @param entries        缓存数量
+ * @param sampledEntries 实际抽样的缓存数量
+ * @param overheadBytes  Map 节点、CacheObject 及其内部对象的固定开销
+ * @param keyBytes       key 的估算大小
+ * @param valueBytes     value 的估算大小，压缩的 value 按压缩后的大小计算
+ * @param elapsedNanos   估算耗时，纳秒
+ * @author sleepybear
+ * @date 2026/10/19 20:30
+ */
+public record MemoryReport(String cacheName, long entries, long sampledEntries, long overheadBytes, long keyBytes, long valueBytes, long elapsedNanos) {
+
+    /**
+     * 估算的总字节数
+     *
+     * @return 字节数
+     */
+    public long totalBytes() {
+        return overheadBytes + keyBytes + valueBytes;
+    }
+
+    /**
+     * 每个缓存的平均字节数
+     *
+     * @return 字节数
+     */
+    public long averageEntryBytes() {
+        return entries == 0 ? 0 : totalBytes() / entries;
+    }
+
+    /**
+     * 是否为抽样推算的结果
+     *
+     * @return boolean
+     */
+    public boolean isSampled() {
+        return sampledEntries < entries;
+    }
+}
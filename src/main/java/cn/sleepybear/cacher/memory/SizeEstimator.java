@@ -0,0 +1,77 @@
+package cn.sleepybear.cacher.memory;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 对象占用堆内存的估算，用于 {@link MemoryReport}<br/>
+ * 估算在读路径之外定期执行，但也会对抽样的每个缓存调用，实现不要做深度遍历或序列化等耗时操作
+ *
+ * @author sleepybear
+ * @date 2026/10/19 20:30
+ */
+@FunctionalInterface
+public interface SizeEstimator {
+
+    /**
+     * 默认估算，按 64 位 JVM 开启压缩指针计算常见类型的浅层大小，集合只计算容器本身和引用，不递归元素
+     */
+    SizeEstimator DEFAULT = SizeEstimator::defaultSizeOf;
+
+    /**
+     * 估算对象占用的字节数
+     *
+     * @param obj 对象，可能为 null
+     * @return 字节数，不能为负数
+     */
+    long sizeOf(Object obj);
+
+    private static long defaultSizeOf(Object obj) {
+        if (obj == null) {
+            return 0;
+        }
+        if (obj instanceof String s) {
+            // String 对象 24 字节，byte[] 数组头 16 字节，按 LATIN1 每个字符 1 字节
+            return align(24) + align(16 + s.length());
+        }
+        if (obj instanceof byte[] bytes) {
+            return align(16 + bytes.length);
+        }
+        if (obj instanceof char[] chars) {
+            return align(16 + chars.length * 2L);
+        }
+        if (obj instanceof int[] ints) {
+            return align(16 + ints.length * 4L);
+        }
+        if (obj instanceof long[] longs) {
+            return align(16 + longs.length * 8L);
+        }
+        if (obj instanceof Object[] objects) {
+            return align(16 + objects.length * 4L);
+        }
+        if (obj instanceof Long || obj instanceof Double) {
+            return 24;
+        }
+        if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character) {
+            return 16;
+        }
+        if (obj instanceof Collection<?> c) {
+            // 容器本身加上每个元素一个引用和一个节点
+            return align(48 + c.size() * 20L);
+        }
+        if (obj instanceof Map<?, ?> m) {
+            return align(64 + m.size() * 36L);
+        }
+        return 16;
+    }
+
+    /**
+     * 按 8 字节对齐
+     *
+     * @param size 字节数
+     * @return 对齐后的字节数
+     */
+    static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,13 @@
+package cn.sleepybear.cacher.stat;
+
+/**
+ * 热点 key 及其估算的访问次数
+ *
+ * @param key   key
+ * @param count 估算的访问次数（已按采样率放大）
+ * @param error 估算误差上限，真实次数在 [count - error, count] 之间
+ * @author sleepybear
+ * @date 2026/10/19 16:10
+ */
+public record HotKey<K>(K key, long count, long error) {
+}
@@ -0,0 +1,199 @@
+package cn.sleepybear.cacher.stat;
+
+import cn.sleepybear.cacher.buffer.StripedRingBuffer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 Space-Saving 算法的热点 key 统计<br/>
+ * get 时按采样率把 key 写入有损缓冲区，由维护线程批量汇总，读路径上只有一次随机数和一次 CAS，不会在读线程上汇总
+ *
+ * @author sleepybear
+ * @date 2026/10/19 16:10
+ */
+public class HotKeyTracker<K> {
+    /**
+     * 最多跟踪的 key 数量
+     */
+    private final int capacity;
+
+    /**
+     * 采样率，每 sampleRate 次访问采样一次，为 2 的幂
+     */
+    private final int sampleRate;
+    private final int sampleMask;
+
+    private final StripedRingBuffer<K> buffer = new StripedRingBuffer<>();
+
+    /**
+     * 缓冲区满时执行汇总的线程池，为 null 则只在维护任务中汇总，期间缓冲区满的记录被丢弃
+     */
+    private volatile Executor drainExecutor;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    /**
+     * 以下字段只在持有 this 锁时访问
+     */
+    private final Map<K, Counter<K>> counters;
+    private final TreeSet<Counter<K>> ordered = new TreeSet<>(Comparator.<Counter<K>>comparingLong(c -> c.count).thenComparingLong(c -> c.seq));
+    private long seq;
+
+    public HotKeyTracker(int capacity) {
+        this(capacity, 16);
+    }
+
+    /**
+     * @param capacity   最多跟踪的 key 数量，越大越准确
+     * @param sampleRate 采样率，向上取 2 的幂，1 表示每次都记录
+     */
+    public HotKeyTracker(int capacity, int sampleRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0!");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate <= 0!");
+        }
+        this.capacity = capacity;
+        this.sampleRate = sampleRate == 1 ? 1 : Integer.highestOneBit(sampleRate - 1) << 1;
+        this.sampleMask = this.sampleRate - 1;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次访问，可能因为采样或者缓冲区竞争而被丢弃
+     *
+     * @param key key
+     */
+    public void record(K key) {
+        if (key == null) {
+            return;
+        }
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return;
+        }
+        if (buffer.offer(key) == StripedRingBuffer.FULL) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 把汇总交给 drainExecutor，同一时刻最多提交一个汇总任务
+     */
+    private void scheduleDrain() {
+        Executor executor = this.drainExecutor;
+        if (executor == null || !drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+        }
+    }
+
+    /**
+     * 把缓冲区中的访问汇总到计数器，若已有线程在汇总则直接返回
+     */
+    public void drain() {
+        buffer.tryDrain(this::increment);
+    }
+
+    /**
+     * 访问次数最多的 k 个 key，按次数从高到低排序
+     *
+     * @param k 数量
+     * @return 热点 key 列表
+     */
+    public List<HotKey<K>> hotKeys(int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        buffer.drain(this::increment);
+        synchronized (this) {
+            List<HotKey<K>> result = new ArrayList<>(Math.min(k, ordered.size()));
+            for (Counter<K> counter : ordered.descendingSet()) {
+                if (result.size() >= k) {
+                    break;
+                }
+                result.add(new HotKey<>(counter.key, counter.count * sampleRate, counter.error * sampleRate));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        buffer.drain(k -> {
+        });
+        synchronized (this) {
+            counters.clear();
+            ordered.clear();
+        }
+    }
+
+    private synchronized void increment(K key) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count++;
+            counter.seq = seq++;
+            ordered.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key, 1, 0, seq++);
+        } else {
+            // 替换计数最小的 key，新 key 继承其计数作为误差
+            Counter<K> min = ordered.pollFirst();
+            counters.remove(min.key);
+            counter = new Counter<>(key, min.count + 1, min.count, seq++);
+        }
+        counters.put(key, counter);
+        ordered.add(counter);
+    }
+
+    /**
+     * 设置缓冲区满时执行汇总的线程池，一般为缓存的清理线程池
+     *
+     * @param drainExecutor 线程池，为 null 则只在维护任务中汇总
+     */
+    public void setDrainExecutor(Executor drainExecutor) {
+        this.drainExecutor = drainExecutor;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    private static final class Counter<K> {
+        private final K key;
+        private long count;
+        private final long error;
+        private long seq;
+
+        Counter(K key, long count, long error, long seq) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package cn.sleepybear.cacher.trace;
+
+import cn.sleepybear.cacher.buffer.StripedRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 访问轨迹记录，把 get/put 以 key 哈希的形式写成紧凑的二进制文件，供 {@link TraceSimulator} 离线回放<br/>
+ * 按 key 哈希采样，被采样的 key 记录全部访问，保证回放时每个 key 的访问序列是完整的；
+ * 写入先进入有损缓冲区，由清理任务批量落盘，缓冲区满时把落盘交给 drainExecutor，读路径不会等待 IO；
+ * 写入竞争失败或段满时会有限次重试，仍写不进时丢弃该记录，丢弃数量见 {@link #getDropped()}
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:50
+ */
+public class AccessTraceRecorder implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(AccessTraceRecorder.class);
+
+    /**
+     * 文件头，"CTRC" + 版本号
+     */
+    static final int MAGIC = 0x43545243;
+    static final int VERSION = 1;
+
+    /**
+     * 写入缓冲区的最大尝试次数
+     */
+    private static final int MAX_OFFER_ATTEMPTS = 4;
+
+    /**
+     * 采样率，每 sampleRate 个 key 采样一个，为 2 的幂
+     */
+    private final int sampleRate;
+    private final int sampleMask;
+
+    private final StripedRingBuffer<TraceRecord> buffer = new StripedRingBuffer<>(Runtime.getRuntime().availableProcessors() * 2, 256);
+
+    /**
+     * 写入时持有 out 自身的锁
+     */
+    private final DataOutputStream out;
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 缓冲区满时执行落盘的线程池，为 null 则只在维护任务中落盘
+     */
+    private volatile Executor drainExecutor;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private volatile boolean closed;
+
+    /**
+     * @param file       轨迹文件，已存在则覆盖
+     * @param sampleRate key 采样率，向上取 2 的幂，1 表示记录所有 key
+     */
+    public AccessTraceRecorder(Path file, int sampleRate) throws IOException {
+        this(Files.newOutputStream(file), sampleRate);
+    }
+
+    public AccessTraceRecorder(OutputStream outputStream, int sampleRate) throws IOException {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate <= 0!");
+        }
+        this.sampleRate = sampleRate == 1 ? 1 : Integer.highestOneBit(sampleRate - 1) << 1;
+        this.sampleMask = this.sampleRate - 1;
+        this.out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.out.writeInt(this.sampleRate);
+    }
+
+    /**
+     * key 是否被采样
+     *
+     * @param key key
+     * @return boolean
+     */
+    public boolean isSampled(Object key) {
+        return !closed && (sampleMask == 0 || (spread(hash(key)) & sampleMask) == 0);
+    }
+
+    /**
+     * 记录一次访问，调用前需要先用 {@link #isSampled(Object)} 判断
+     *
+     * @param op  操作类型
+     * @param key key
+     */
+    public void record(byte op, Object key) {
+        TraceRecord record = new TraceRecord(op, hash(key), System.currentTimeMillis());
+        for (int i = 0; i < MAX_OFFER_ATTEMPTS; i++) {
+            int result = buffer.offer(record);
+            if (result == StripedRingBuffer.SUCCESS) {
+                return;
+            }
+            // 竞争失败直接重试；段满时交给 drainExecutor 落盘后重试，不等待落盘完成，读路径不等待 IO
+            if (result == StripedRingBuffer.FULL) {
+                scheduleDrain();
+            }
+        }
+        dropped.increment();
+    }
+
+    /**
+     * 把落盘交给 drainExecutor，同一时刻最多提交一个落盘任务
+     */
+    private void scheduleDrain() {
+        Executor executor = this.drainExecutor;
+        if (executor == null || !drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+        }
+    }
+
+    /**
+     * 设置缓冲区满时执行落盘的线程池，一般为缓存的清理线程池
+     *
+     * @param drainExecutor 线程池，为 null 则只在维护任务中落盘
+     */
+    public void setDrainExecutor(Executor drainExecutor) {
+        this.drainExecutor = drainExecutor;
+    }
+
+    /**
+     * 把缓冲区写入文件
+     */
+    public void flush() {
+        buffer.drain(this::write);
+        synchronized (out) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 把缓冲区写入底层输出流，但不强制 flush，若已有线程在写入则直接返回
+     */
+    public void drain() {
+        buffer.tryDrain(this::write);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.drain(this::write);
+        synchronized (out) {
+            out.close();
+        }
+    }
+
+    private void write(TraceRecord record) {
+        try {
+            synchronized (out) {
+                out.writeByte(record.op());
+                out.writeInt(record.keyHash());
+                out.writeLong(record.timestamp());
+            }
+        } catch (IOException e) {
+            log.warn("write access trace error", e);
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 被采样但未能写入缓冲区而丢弃的记录数
+     *
+     * @return long
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 读取轨迹文件
+     *
+     * @param inputStream 输入流，读取完后不会关闭
+     * @param consumer    每条记录的回调
+     * @return 文件头中的采样率
+     */
+    public static int read(InputStream inputStream, Consumer<TraceRecord> consumer) throws IOException {
+        return read(inputStream, null, consumer);
+    }
+
+    /**
+     * 读取轨迹文件
+     *
+     * @param inputStream 输入流，读取完后不会关闭
+     * @param header      读到文件头后以采样率回调，在所有记录之前，可以为 null
+     * @param consumer    每条记录的回调
+     * @return 文件头中的采样率
+     */
+    public static int read(InputStream inputStream, IntConsumer header, Consumer<TraceRecord> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not an access trace file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported access trace version: " + version);
+        }
+        int sampleRate = in.readInt();
+        if (header != null) {
+            header.accept(sampleRate);
+        }
+        while (true) {
+            byte op;
+            try {
+                op = in.readByte();
+            } catch (EOFException e) {
+                break;
+            }
+            consumer.accept(new TraceRecord(op, in.readInt(), in.readLong()));
+        }
+        return sampleRate;
+    }
+
+    private static int hash(Object key) {
+        return key == null ? 0 : key.hashCode();
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,22 @@
+package cn.sleepybear.cacher.trace;
+
+/**
+ * 模拟时使用的淘汰策略
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:50
+ */
+public enum EvictionPolicyEnum {
+    /**
+     * 淘汰最久未访问的
+     */
+    LRU,
+    /**
+     * 淘汰访问次数最少的，次数相同时淘汰最久未访问的
+     */
+    LFU,
+    /**
+     * 淘汰最早写入的
+     */
+    FIFO,
+}
@@ -0,0 +1,50 @@
+package cn.sleepybear.cacher.trace;
+
+import cn.sleepybear.cacher.cache.ExpireWayEnum;
+
+/**
+ * 模拟配置
+ *
+ * @param name           配置名称，用于输出
+ * @param expireWayEnum  过期策略
+ * @param expireTime     过期时间，毫秒，null 表示不过期
+ * @param maximumSize    最大缓存数量，即线上的容量，0 表示不限制；回放采样的轨迹时会按采样率缩小
+ * @param evictionPolicy 超过最大数量时的淘汰策略
+ * @author sleepybear
+ * @date 2026/10/19 19:50
+ */
+public record SimulationConfig(String name, ExpireWayEnum expireWayEnum, Long expireTime, long maximumSize, EvictionPolicyEnum evictionPolicy) {
+
+    public SimulationConfig {
+        if (expireWayEnum == null) {
+            expireWayEnum = ExpireWayEnum.AFTER_CREATE;
+        }
+        if (evictionPolicy == null) {
+            evictionPolicy = EvictionPolicyEnum.LRU;
+        }
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize < 0!");
+        }
+        if (name == null) {
+            name = evictionPolicy + ":" + maximumSize + ":" + expireTime + ":" + expireWayEnum;
+        }
+    }
+
+    /**
+     * 从 "策略:最大数量:过期毫秒:过期策略" 格式解析，例如 "LRU:10000:60000:AFTER_ACCESS"，过期毫秒为 - 表示不过期
+     *
+     * @param spec 配置字符串
+     * @return SimulationConfig
+     */
+    public static SimulationConfig parse(String spec) {
+        String[] parts = spec.split(":");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Illegal simulation config: " + spec);
+        }
+        EvictionPolicyEnum policy = EvictionPolicyEnum.valueOf(parts[0].trim().toUpperCase());
+        long maximumSize = Long.parseLong(parts[1].trim());
+        Long expireTime = parts.length < 3 || "-".equals(parts[2].trim()) ? null : Long.valueOf(parts[2].trim());
+        ExpireWayEnum way = parts.length < 4 ? ExpireWayEnum.AFTER_CREATE : ExpireWayEnum.valueOf(parts[3].trim().toUpperCase());
+        return new SimulationConfig(spec, way, expireTime, maximumSize, policy);
+    }
+}
@@ -0,0 +1,28 @@
+package cn.sleepybear.cacher.trace;
+
+/**
+ * 模拟结果，各次数已按采样率放大
+ *
+ * @param config     模拟配置
+ * @param sampleRate 轨迹的 key 采样率
+ * @param requests   get 次数
+ * @param hits       命中次数
+ * @param loads      未命中导致的 load 次数，即后端请求量
+ * @param puts       put 次数
+ * @param evictions  淘汰次数
+ * @param expires    过期次数
+ * @author sleepybear
+ * @date 2026/10/19 19:50
+ */
+public record SimulationResult(SimulationConfig config, long sampleRate, long requests, long hits, long loads, long puts, long evictions, long expires) {
+
+    public double hitRatio() {
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: sampleRate = %d, requests = %d, hitRatio = %.4f, loads = %d, puts = %d, evictions = %d, expires = %d",
+                config.name(), sampleRate, requests, hitRatio(), loads, puts, evictions, expires);
+    }
+}
@@ -0,0 +1,25 @@
+package cn.sleepybear.cacher.trace;
+
+/**
+ * 一条访问记录，二进制格式为 1 字节操作类型 + 4 字节 key 哈希 + 8 字节毫秒时间戳
+ *
+ * @param op        操作类型，{@link #GET_HIT}、{@link #GET_MISS} 或 {@link #PUT}
+ * @param keyHash   key 的哈希
+ * @param timestamp 毫秒时间戳
+ * @author sleepybear
+ * @date 2026/10/19 19:50
+ */
+public record TraceRecord(byte op, int keyHash, long timestamp) {
+    public static final byte GET_HIT = 1;
+    public static final byte GET_MISS = 2;
+    public static final byte PUT = 3;
+
+    /**
+     * 单条记录的字节数
+     */
+    public static final int BYTES = 13;
+
+    public boolean isGet() {
+        return op == GET_HIT || op == GET_MISS;
+    }
+}
@@ -0,0 +1,217 @@
+package cn.sleepybear.cacher.trace;
+
+import cn.sleepybear.cacher.cache.ExpireWayEnum;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 离线回放 {@link AccessTraceRecorder} 记录的访问轨迹，对比不同过期策略、过期时间、容量、淘汰策略下的命中率和 load 次数<br/>
+ * 模型假设每次未命中都会 load 到值并写入缓存，时间以轨迹中的时间戳为准<br/>
+ * 轨迹按 key 采样时，回放的容量按采样率缩小，结果中的次数按采样率放大，即估算的线上数值<br/>
+ * 命令行用法：java cn.sleepybear.cacher.trace.TraceSimulator trace.bin LRU:10000:60000:AFTER_ACCESS LFU:5000:-
+ *
+ * @author sleepybear
+ * @date 2026/10/19 19:50
+ */
+public class TraceSimulator {
+
+    private TraceSimulator() {
+    }
+
+    /**
+     * 回放轨迹文件，所有配置只读一遍文件
+     *
+     * @param trace   轨迹文件
+     * @param configs 配置
+     * @return 每个配置的结果，顺序与 configs 相同
+     */
+    public static List<SimulationResult> simulate(Path trace, List<SimulationConfig> configs) throws IOException {
+        try (InputStream in = Files.newInputStream(trace)) {
+            return simulate(in, configs);
+        }
+    }
+
+    public static List<SimulationResult> simulate(InputStream trace, List<SimulationConfig> configs) throws IOException {
+        List<SimulatedCache> caches = new ArrayList<>(configs.size());
+        AccessTraceRecorder.read(trace, sampleRate -> {
+            for (SimulationConfig config : configs) {
+                caches.add(new SimulatedCache(config, sampleRate));
+            }
+        }, record -> {
+            for (SimulatedCache cache : caches) {
+                cache.accept(record);
+            }
+        });
+        List<SimulationResult> results = new ArrayList<>(caches.size());
+        for (SimulatedCache cache : caches) {
+            results.add(cache.result());
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: TraceSimulator <trace file> <policy:maximumSize:expireMillis|-:expireWay> ...");
+            System.out.println("example: TraceSimulator trace.bin LRU:10000:60000:AFTER_ACCESS LFU:10000:- FIFO:0:30000");
+            return;
+        }
+        List<SimulationConfig> configs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            configs.add(SimulationConfig.parse(args[i]));
+        }
+        for (SimulationResult result : simulate(Path.of(args[0]), configs)) {
+            System.out.println(result);
+        }
+    }
+
+    private static final class Entry {
+        private final int key;
+        private final long createTime;
+        private long accessTime;
+        private long frequency;
+        private long seq;
+
+        Entry(int key, long now, long seq) {
+            this.key = key;
+            this.createTime = now;
+            this.accessTime = now;
+            this.frequency = 1;
+            this.seq = seq;
+        }
+    }
+
+    private static final class SimulatedCache {
+        private final SimulationConfig config;
+        private final int sampleRate;
+
+        /**
+         * 按采样率缩小后的容量，0 表示不限制
+         */
+        private final long maximumSize;
+
+        /**
+         * LRU 使用访问顺序，FIFO 和 LFU 使用插入顺序
+         */
+        private final LinkedHashMap<Integer, Entry> entries;
+
+        /**
+         * 只有 LFU 使用
+         */
+        private final TreeSet<Entry> frequencyOrder;
+
+        private long clock;
+        private long seq;
+        private long requests;
+        private long hits;
+        private long loads;
+        private long puts;
+        private long evictions;
+        private long expires;
+
+        SimulatedCache(SimulationConfig config, int sampleRate) {
+            this.config = config;
+            this.sampleRate = Math.max(1, sampleRate);
+            this.maximumSize = config.maximumSize() <= 0 ? 0 : Math.max(1, (config.maximumSize() + this.sampleRate - 1) / this.sampleRate);
+            this.entries = new LinkedHashMap<>(1024, 0.75F, config.evictionPolicy() == EvictionPolicyEnum.LRU);
+            this.frequencyOrder = config.evictionPolicy() == EvictionPolicyEnum.LFU
+                    ? new TreeSet<>(Comparator.<Entry>comparingLong(e -> e.frequency).thenComparingLong(e -> e.seq))
+                    : null;
+        }
+
+        void accept(TraceRecord record) {
+            // 轨迹按段批量落盘，时间戳可能有少量乱序
+            clock = Math.max(clock, record.timestamp());
+            int key = record.keyHash();
+            if (record.isGet()) {
+                requests++;
+                Entry entry = entries.get(key);
+                if (entry != null && isExpired(entry)) {
+                    remove(entry);
+                    expires++;
+                    entry = null;
+                }
+                if (entry != null) {
+                    hits++;
+                    touch(entry);
+                } else {
+                    loads++;
+                    insert(key);
+                }
+            } else if (record.op() == TraceRecord.PUT) {
+                puts++;
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    remove(entry);
+                }
+                insert(key);
+            }
+        }
+
+        private boolean isExpired(Entry entry) {
+            Long expireTime = config.expireTime();
+            if (expireTime == null) {
+                return false;
+            }
+            // 模拟中没有单独的更新操作，put 即重新创建，所以 AFTER_UPDATE 与 AFTER_CREATE 相同
+            long base = config.expireWayEnum() == ExpireWayEnum.AFTER_ACCESS ? entry.accessTime : entry.createTime;
+            return base + expireTime <= clock;
+        }
+
+        private void touch(Entry entry) {
+            if (frequencyOrder != null) {
+                frequencyOrder.remove(entry);
+            }
+            entry.accessTime = clock;
+            entry.frequency++;
+            entry.seq = seq++;
+            if (frequencyOrder != null) {
+                frequencyOrder.add(entry);
+            }
+        }
+
+        private void insert(int key) {
+            Entry entry = new Entry(key, clock, seq++);
+            entries.put(key, entry);
+            if (frequencyOrder != null) {
+                frequencyOrder.add(entry);
+            }
+            if (maximumSize > 0 && entries.size() > maximumSize) {
+                evict();
+            }
+        }
+
+        private void evict() {
+            Entry victim;
+            if (frequencyOrder != null) {
+                victim = frequencyOrder.first();
+            } else {
+                Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+                victim = iterator.next().getValue();
+            }
+            remove(victim);
+            evictions++;
+        }
+
+        private void remove(Entry entry) {
+            entries.remove(entry.key);
+            if (frequencyOrder != null) {
+                frequencyOrder.remove(entry);
+            }
+        }
+
+        SimulationResult result() {
+            long s = sampleRate;
+            return new SimulationResult(config, s, requests * s, hits * s, loads * s, puts * s, evictions * s, expires * s);
+        }
+    }
+}
@@ -1,11 +1,53 @@
 package cn.sleepybear.cacher;
 
+import cn.sleepybear.cacher.cache.CacheObject;
 import cn.sleepybear.cacher.cache.ExpireWayEnum;
+import cn.sleepybear.cacher.cache.ValueCodec;
+import cn.sleepybear.cacher.event.CacheEvent;
+import cn.sleepybear.cacher.event.CacheEventPublisher;
+import cn.sleepybear.cacher.event.CacheEventTypeEnum;
+import cn.sleepybear.cacher.event.OverflowPolicyEnum;
+import cn.sleepybear.cacher.loader.CacherValueLoader;
+import cn.sleepybear.cacher.memory.CacherMemory;
+import cn.sleepybear.cacher.memory.MemoryReport;
+import cn.sleepybear.cacher.stat.HotKey;
+import cn.sleepybear.cacher.trace.AccessTraceRecorder;
+import cn.sleepybear.cacher.trace.EvictionPolicyEnum;
+import cn.sleepybear.cacher.trace.SimulationConfig;
+import cn.sleepybear.cacher.trace.SimulationResult;
+import cn.sleepybear.cacher.trace.TraceSimulator;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
 
 /**
  * There is description
@@ -66,4 +108,793 @@ public class CacherTest {
         System.out.println(cacher.get(555));
         System.out.println(cacher.get(null));
     }
+
+    @Test
+    public void testCompress() throws InterruptedException {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                // 超过 256 字节的 value 压缩保存，保留 2 个解压结果
+                .compress(ValueCodec.string(), 256, 2)
+                .build();
+        String big = "{\"name\":\"sleepybear\",\"value\":1234567890}".repeat(100);
+        cacher.put(1, big);
+        cacher.put(2, "small");
+
+        CacheObject<String> cacheObject = cacher.getCacheObject(1);
+        Assert.assertTrue(cacheObject.isCompressed());
+        Assert.assertTrue(cacheObject.getCompressedSize() < big.length() / 5);
+        Assert.assertEquals(big, cacher.get(1));
+        Assert.assertEquals(big, cacher.get(1));
+        Assert.assertFalse(cacher.getCacheObject(2).isCompressed());
+        Assert.assertEquals("small", cacher.get(2));
+
+        // 更新为另一个大 value 后，不能读到旧的解压结果
+        String big2 = "{\"name\":\"sleepybear\",\"value\":987654321}".repeat(100);
+        cacher.set(1, big2);
+        Assert.assertTrue(cacher.getCacheObject(1).isCompressed());
+        Assert.assertEquals(big2, cacher.get(1));
+
+        cacher.set(1, "small again");
+        Assert.assertFalse(cacher.getCacheObject(1).isCompressed());
+        Assert.assertEquals("small again", cacher.get(1));
+
+        // 有压缩时 merge 在锁外计算，并发修改时重试，不丢失更新
+        cacher.put(3, big);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    cacher.merge(3, "x", String::concat);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(cacher.getCacheObject(3).isCompressed());
+        Assert.assertEquals(big.length() + 400, cacher.get(3).length());
+        Assert.assertEquals(big, cacher.computeIfAbsent(4, key -> big));
+        Assert.assertTrue(cacher.getCacheObject(4).isCompressed());
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testHotKeys() {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                // 跟踪 16 个 key，每次 get 都记录
+                .hotKeyTracking(16, 1)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cacher.put(i, "v" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            cacher.get(i % 100);
+            cacher.get(7);
+            if (i % 2 == 0) {
+                cacher.get(42);
+            }
+        }
+        List<HotKey<Integer>> hotKeys = cacher.hotKeys(2);
+        Assert.assertEquals(2, hotKeys.size());
+        Assert.assertEquals(Integer.valueOf(7), hotKeys.get(0).key());
+        Assert.assertEquals(Integer.valueOf(42), hotKeys.get(1).key());
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testAdaptiveExpire() throws InterruptedException {
+        AtomicInteger loadCount = new AtomicInteger();
+        AtomicInteger expireCount = new AtomicInteger();
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .delay(1, TimeUnit.HOURS)
+                // 每轮抽查 10 个
+                .adaptiveExpire(10, 50L, 100L)
+                .cacherLoader(null, key -> {
+                    loadCount.incrementAndGet();
+                    return "load";
+                }, (key, cacheObject, auto) -> expireCount.incrementAndGet())
+                .build();
+        cacher.shutdownExpireScheduleNow();
+        for (int i = 0; i < 100; i++) {
+            cacher.put(i, "v" + i, i < 90 ? 1L : null);
+        }
+        Thread.sleep(5);
+        long removed = cacher.expireIncrementally();
+        Assert.assertTrue(removed > 0);
+        while (cacher.expireIncrementally() > 0) {
+            Thread.yield();
+        }
+        Assert.assertEquals(10, cacher.size());
+        Assert.assertEquals(90, expireCount.get());
+        Assert.assertEquals(0, loadCount.get());
+    }
+
+    @Test
+    public void testWarmUp() {
+        AtomicInteger bulkCount = new AtomicInteger();
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .cacherBulkLoader(keys -> {
+                    bulkCount.incrementAndGet();
+                    Map<Integer, String> map = new HashMap<>();
+                    for (Integer key : keys) {
+                        if (key % 10 != 0) {
+                            map.put(key, "v" + key);
+                        }
+                    }
+                    return map;
+                })
+                .warmUpParallelism(4)
+                .warmUpBatchSize(100)
+                .build();
+        cacher.put(1, "exists");
+        WarmUpResult result = cacher.warmUp(IntStream.range(0, 1000).boxed());
+        Assert.assertEquals(1000, result.requested());
+        Assert.assertEquals(1, result.skipped());
+        Assert.assertEquals(899, result.loaded());
+        Assert.assertEquals(100, result.missing());
+        Assert.assertEquals(10, bulkCount.get());
+        Assert.assertEquals("exists", cacher.get(1));
+        Assert.assertEquals("v2", cacher.get(2));
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testFrozen() {
+        Map<Integer, String> data = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            data.put(i, "v" + i);
+        }
+        data.put(null, "null");
+        FrozenCacher<Integer, String> frozen = new FrozenCacher<>(() -> data);
+        Assert.assertEquals(1001, frozen.size());
+        Assert.assertEquals("v500", frozen.get(500));
+        Assert.assertEquals("null", frozen.get(null));
+        Assert.assertNull(frozen.get(1000));
+
+        data.put(1000, "v1000");
+        frozen.reload();
+        Assert.assertEquals("v1000", frozen.get(1000));
+
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>().build();
+        cacher.put(1, "a");
+        cacher.put(2, "b", 1L);
+        FrozenCacher<Integer, String> snapshot = cacher.freeze();
+        Assert.assertEquals("a", snapshot.get(1));
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testTag() {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                // load 的缓存按奇偶打标签
+                .cacherLoader(null, key -> "load" + key)
+                .tagLoader(key -> Set.of(key % 2 == 0 ? "even" : "odd"))
+                .build();
+        for (int i = 0; i < 10; i++) {
+            cacher.put(i, "v" + i, null, ExpireWayEnum.AFTER_CREATE, Set.of("tenant-" + (i % 3)));
+        }
+        Assert.assertEquals(Set.of(0, 3, 6, 9), cacher.getTagKeys("tenant-0"));
+
+        // 替换后旧标签失效
+        cacher.put(3, "new");
+        cacher.set(6, "v6", null, null, Set.of("tenant-1"));
+        Assert.assertEquals(Set.of(0, 9), cacher.getTagKeys("tenant-0"));
+        Assert.assertEquals(2, cacher.invalidateTag("tenant-0"));
+        Assert.assertEquals(8, cacher.size());
+        Assert.assertEquals(0, cacher.invalidateTag("tenant-0"));
+
+        cacher.remove(1);
+        Assert.assertEquals(Set.of(4, 6, 7), cacher.getTagKeys("tenant-1"));
+
+        Assert.assertEquals("load20", cacher.get(20));
+        Assert.assertEquals("load22", cacher.get(22));
+        Assert.assertEquals(2, cacher.invalidateTag("even"));
+        Assert.assertEquals(7, cacher.size());
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testEvictColdest() throws InterruptedException {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .softValues()
+                .memoryPressureEviction(0.95)
+                .build();
+        for (int i = 0; i < 10; i++) {
+            cacher.put(i, "v" + i);
+        }
+        Thread.sleep(5);
+        for (int i = 5; i < 10; i++) {
+            cacher.get(i);
+        }
+        Assert.assertEquals(5, cacher.evictColdest(5));
+        Assert.assertEquals(Set.of(5, 6, 7, 8, 9), cacher.keySet());
+        Assert.assertEquals("v7", cacher.get(7));
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testMemoryPressure() throws InterruptedException {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .memoryPressureEviction(0.9)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cacher.put(i, "v" + i);
+        }
+        // 缩到 100 * 0.9 / 0.99 = 90 个
+        cacher.onMemoryPressure(0.99);
+        for (int i = 0; i < 100 && cacher.size() > 90; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(90, cacher.size());
+        // 冷却期内不再淘汰
+        cacher.onMemoryPressure(0.99);
+        Thread.sleep(50);
+        Assert.assertEquals(90, cacher.size());
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSoftValues() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .softValues()
+                .cacherLoader(null, key -> {
+                    loadCount.incrementAndGet();
+                    return "load" + key;
+                })
+                .build();
+        cacher.put(1, "v1");
+        cacher.put(2, "v2");
+        CacheObject<String> cacheObject = cacher.getCacheObjectPure(1);
+        // 模拟 GC 回收软引用，回收后视为过期，重新 load
+        Field softObj = CacheObject.class.getDeclaredField("softObj");
+        softObj.setAccessible(true);
+        ((SoftReference<String>) softObj.get(cacheObject)).clear();
+        Assert.assertTrue(cacheObject.isCollected());
+        Assert.assertEquals("load1", cacher.get(1));
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals("v2", cacher.get(2));
+        Assert.assertEquals(1, loadCount.get());
+
+        // 序列化后保留引用的对象，已回收的仍视为已回收
+        CacheObject<String> live = roundTrip(cacher.getCacheObjectPure(2));
+        Assert.assertFalse(live.isCollected());
+        Assert.assertEquals("v2", live.getObjPure());
+        Assert.assertTrue(roundTrip(cacheObject).isCollected());
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T obj) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    @Test
+    public void testJfrEvents() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("cacher", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("cn.sleepybear.cacher.CacheLoad");
+            recording.enable("cn.sleepybear.cacher.CacheExpiration");
+            recording.enable("cn.sleepybear.cacher.ExpireSweep");
+            recording.start();
+
+            Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                    .scheduleName("jfr")
+                    .delay(1, TimeUnit.HOURS)
+                    .cacherLoader(null, key -> key == 2 ? null : "load" + key)
+                    .build();
+            cacher.shutdownExpireScheduleNow();
+            cacher.get(1);
+            cacher.put(2, "v2", 1L);
+            Thread.sleep(5);
+            cacher.expire();
+
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.deleteIfExists(file);
+        Assert.assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("cn.sleepybear.cacher.CacheLoad")
+                && "SUCCESS".equals(e.getString("outcome"))));
+        Assert.assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("cn.sleepybear.cacher.CacheExpiration")
+                && "EXPIRED".equals(e.getString("cause"))));
+        Assert.assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("cn.sleepybear.cacher.ExpireSweep")
+                && e.getLong("removed") == 1));
+    }
+
+    @Test
+    public void testTraceSimulator() throws IOException {
+        Path file = Files.createTempFile("cacher", ".trace");
+        try (AccessTraceRecorder recorder = new AccessTraceRecorder(file, 1)) {
+            Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                    .cacherLoader(null, key -> "v" + key)
+                    .traceRecorder(recorder)
+                    .build();
+            cacher.shutdownExpireScheduleNow();
+            // 缓冲区满时默认交给清理线程池异步落盘，来不及时会丢弃，测试中同步落盘，保证轨迹完整
+            recorder.setDrainExecutor(Runnable::run);
+            // 1 个热点 key 与 20 个 key 循环访问交替
+            for (int i = 0; i < 500; i++) {
+                cacher.get(0);
+                cacher.get(1 + i % 20);
+            }
+            // load 回填不记录为 PUT，调用方的写入才记录
+            cacher.set(100, "x");
+            cacher.putIfAbsent(0, "y");
+            recorder.flush();
+            Assert.assertEquals(0, recorder.getDropped());
+        }
+        List<SimulationResult> results = TraceSimulator.simulate(file, List.of(
+                new SimulationConfig("unbounded", ExpireWayEnum.AFTER_CREATE, null, 0, EvictionPolicyEnum.LRU),
+                new SimulationConfig("lru-5", ExpireWayEnum.AFTER_CREATE, null, 5, EvictionPolicyEnum.LRU),
+                SimulationConfig.parse("LFU:5:-")));
+        Files.deleteIfExists(file);
+        Assert.assertEquals(1000, results.get(0).requests());
+        Assert.assertEquals(21, results.get(0).loads());
+        Assert.assertEquals(1, results.get(0).puts());
+        // 容量不足时只有热点 key 命中
+        Assert.assertEquals(499, results.get(1).hits());
+        Assert.assertTrue(results.get(2).hits() >= 499);
+    }
+
+    @Test
+    public void testCompute() throws InterruptedException {
+        AtomicInteger loadCount = new AtomicInteger();
+        Cacher<String, Integer> cacher = new CacherBuilder<String, Integer>()
+                .cacherLoader(null, key -> {
+                    loadCount.incrementAndGet();
+                    return -1;
+                })
+                // 避免启动时的清理任务把过期的缓存重新 load
+                .initialDelay(60_000L)
+                .build();
+        Assert.assertNull(cacher.putIfAbsent("a", 1));
+        Assert.assertEquals(Integer.valueOf(1), cacher.putIfAbsent("a", 2));
+        Assert.assertEquals(Integer.valueOf(3), cacher.computeIfAbsent("b", key -> 3));
+        Assert.assertEquals(Integer.valueOf(3), cacher.computeIfAbsent("b", key -> 4));
+        Assert.assertNull(cacher.compute("b", (key, old) -> null));
+        Assert.assertFalse(cacher.keySet().contains("b"));
+
+        // 已过期的视为不存在
+        cacher.put("c", 100, 1L);
+        Thread.sleep(5);
+        Assert.assertEquals(Integer.valueOf(5), cacher.merge("c", 5, Integer::sum));
+
+        // 并发计数
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    cacher.merge("counter", 1, Integer::sum);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(Integer.valueOf(4000), cacher.compute("counter", (key, old) -> old));
+        Assert.assertTrue(cacher.getCacheObjectPure("counter").getUpdateTime() >= cacher.getCacheObjectPure("counter").getCreateTime());
+
+        cacher.set("d", 7);
+        Assert.assertEquals(0, loadCount.get());
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testBufferedAccess() throws InterruptedException {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .delay(1, TimeUnit.HOURS)
+                .bufferedAccess()
+                .build();
+        cacher.put(1, "v1", 200L, ExpireWayEnum.AFTER_ACCESS);
+        long createTime = cacher.getCacheObjectPure(1).getCreateTime();
+        Thread.sleep(120);
+        Assert.assertEquals("v1", cacher.get(1));
+        // 访问时间还在缓冲区中
+        Assert.assertEquals(createTime, cacher.getCacheObjectPure(1).getAccessTime());
+        Thread.sleep(120);
+        // 读取时发现按旧的访问时间已过期，回放缓冲区后仍未过期
+        Assert.assertEquals("v1", cacher.get(1));
+        Assert.assertTrue(cacher.getCacheObjectPure(1).getAccessTime() > createTime);
+
+        // 缓冲区满时由清理线程回放，读线程不回放
+        cacher.put(2, "v2");
+        for (int i = 0; i < 10000; i++) {
+            cacher.get(2);
+        }
+        for (int i = 0; i < 100 && cacher.getCacheObjectPure(2).getAccessCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(cacher.getCacheObjectPure(2).getAccessCount() > 0);
+        cacher.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testEstimateMemory() throws Exception {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .scheduleName("memory-test")
+                .delay(1, TimeUnit.HOURS)
+                .jmx()
+                .build();
+        for (int i = 0; i < 2000; i++) {
+            cacher.put(i, "value-" + i, 60_000L);
+        }
+        MemoryReport full = cacher.estimateMemory(0);
+        Assert.assertEquals(2000, full.entries());
+        Assert.assertFalse(full.isSampled());
+        Assert.assertTrue(full.valueBytes() > 2000 * 40);
+        Assert.assertTrue(full.totalBytes() > full.valueBytes() + full.keyBytes());
+
+        MemoryReport sampled = cacher.estimateMemory(100);
+        Assert.assertEquals(100, sampled.sampledEntries());
+        Assert.assertTrue(sampled.isSampled());
+        // 每个缓存大小接近，抽样推算结果与全量相差不大
+        Assert.assertEquals(full.totalBytes(), sampled.totalBytes(), full.totalBytes() * 0.1);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = CacherMemory.objectName("memory-test");
+        Assert.assertEquals(2000L, server.getAttribute(name, "Size"));
+        Assert.assertTrue((Long) server.getAttribute(name, "EstimatedBytes") > 0);
+        cacher.shutdownExpireScheduleNow();
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testEvents() throws InterruptedException {
+        Cacher<Integer, String> cacher = new CacherBuilder<Integer, String>()
+                .delay(1, TimeUnit.HOURS)
+                .build();
+        List<CacheEvent<Integer, String>> received = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        cacher.events().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(CacheEvent<Integer, String> item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+        cacher.put(1, "a");
+        cacher.set(1, "b");
+        cacher.putIfAbsent(1, "c");
+        cacher.remove(1);
+        cacher.put(2, "x", 10L);
+        Thread.sleep(30);
+        Assert.assertNull(cacher.get(2));
+        cacher.put(3, "y");
+        cacher.evictColdest(1);
+        cacher.shutdownExpireScheduleNow();
+        Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of(CacheEventTypeEnum.PUT, CacheEventTypeEnum.UPDATE, CacheEventTypeEnum.REMOVE,
+                        CacheEventTypeEnum.PUT, CacheEventTypeEnum.EXPIRE, CacheEventTypeEnum.PUT, CacheEventTypeEnum.EVICT),
+                received.stream().map(CacheEvent::type).toList());
+        Assert.assertEquals("b", received.get(1).value());
+        Assert.assertEquals("y", received.get(6).value());
+
+        // 重置清理任务后可以重新订阅
+        cacher.resetExpireSchedule();
+        Assert.assertFalse(cacher.events().isClosed());
+        List<CacheEvent<Integer, String>> reopened = new CopyOnWriteArrayList<>();
+        cacher.events().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(CacheEvent<Integer, String> item) {
+                reopened.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        cacher.put(4, "z");
+        for (int i = 0; i < 50 && reopened.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, reopened.size());
+        Assert.assertEquals(7, received.size());
+        cacher.shutdownExpireScheduleNow();
+
+        // 没有 request 时事件留在缓冲区，同一个 key 只保留最新的
+        CacheEventPublisher<Integer, String> publisher = new CacheEventPublisher<>(Runnable::run, 2, OverflowPolicyEnum.COALESCE);
+        List<String> values = new ArrayList<>();
+        Flow.Subscription[] holder = new Flow.Subscription[1];
+        CacheEventPublisher<Integer, String>.EventSubscription subscription = publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                holder[0] = s;
+            }
+
+            @Override
+            public void onNext(CacheEvent<Integer, String> item) {
+                values.add(item.key() + "=" + item.value());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }, 2, OverflowPolicyEnum.COALESCE);
+        for (int i = 0; i < 5; i++) {
+            publisher.publish(new CacheEvent<>("t", CacheEventTypeEnum.UPDATE, 1, "v" + i, i));
+        }
+        publisher.publish(new CacheEvent<>("t", CacheEventTypeEnum.PUT, 2, "w", 5));
+        publisher.publish(new CacheEvent<>("t", CacheEventTypeEnum.PUT, 3, "z", 6));
+        Assert.assertTrue(values.isEmpty());
+        holder[0].request(10);
+        Assert.assertEquals(List.of("1=v4", "2=w"), values);
+        Assert.assertEquals(5, subscription.getDropped());
+
+        // 压缩保存的 value 在订阅方读取时才解压，写入线程不解压，读到的是事件发生时的 value
+        AtomicInteger decodes = new AtomicInteger();
+        ValueCodec<String> string = ValueCodec.string();
+        Cacher<Integer, String> compressed = new CacherBuilder<Integer, String>()
+                .delay(1, TimeUnit.HOURS)
+                .compress(new ValueCodec<>() {
+                    @Override
+                    public byte[] encode(String value) {
+                        return string.encode(value);
+                    }
+
+                    @Override
+                    public String decode(byte[] bytes) {
+                        decodes.incrementAndGet();
+                        return string.decode(bytes);
+                    }
+                }, 256)
+                .build();
+        List<CacheEvent<Integer, String>> compressedEvents = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(2);
+        compressed.events().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(CacheEvent<Integer, String> item) {
+                compressedEvents.add(item);
+                delivered.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        String big = "a".repeat(1000);
+        String big2 = "b".repeat(1000);
+        compressed.put(1, big);
+        compressed.set(1, big2);
+        Assert.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, decodes.get());
+        Assert.assertEquals(big, compressedEvents.get(0).value());
+        Assert.assertEquals(big2, compressedEvents.get(1).value());
+        Assert.assertEquals(big2, compressedEvents.get(1).value());
+        Assert.assertEquals(2, decodes.get());
+        compressed.shutdownExpireScheduleNow();
+    }
+
+    @Test
+    public void testCacherManager() throws InterruptedException {
+        try (CacherManager manager = new CacherManager(200, BudgetTypeEnum.ENTRIES, 1, 0, TimeUnit.SECONDS)) {
+            Cacher<Integer, String> big = manager.create(new CacherBuilder<Integer, String>()
+                    .scheduleName("big")
+                    .initialDelay(60_000L)
+                    .cacherLoader(null, key -> "big-" + key));
+            Cacher<Integer, String> small = manager.create(new CacherBuilder<Integer, String>()
+                    .scheduleName("small")
+                    .initialDelay(60_000L)
+                    .cacherLoader(null, key -> "small-" + key));
+            Assert.assertEquals(100, big.getMaximumSize());
+            Assert.assertEquals(100, small.getMaximumSize());
+
+            // big 的工作集 150 超出容量，small 只用到 10
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 150; i++) {
+                    big.get(i);
+                    if (i % 15 == 0) {
+                        small.get(i / 15);
+                    }
+                }
+                Thread.sleep(50);
+                manager.rebalance();
+            }
+            Assert.assertTrue(big.getCapacityMissCount() > 0);
+            Assert.assertTrue(manager.getQuota(big) >= 150);
+            Assert.assertEquals(200, manager.getQuota(big) + manager.getQuota(small));
+            Assert.assertTrue(small.getMaximumSize() >= 10);
+
+            // 容量足够后全部命中
+            long misses = big.getMissCount();
+            for (int i = 0; i < 150; i++) {
+                big.get(i);
+            }
+            for (int i = 0; i < 150; i++) {
+                big.get(i);
+            }
+            Assert.assertTrue(big.getMissCount() - misses <= 150);
+            Assert.assertTrue(big.size() <= big.getMaximumSize());
+        }
+
+        // 预算总和始终等于 budget，放不下时拒绝注册
+        try (CacherManager manager = new CacherManager(7, BudgetTypeEnum.ENTRIES, 1, 0, TimeUnit.SECONDS)) {
+            List<Cacher<Integer, String>> cachers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                cachers.add(manager.create(new CacherBuilder<Integer, String>().scheduleName("m" + i)));
+                Assert.assertEquals(7L, manager.getQuotas().values().stream().mapToLong(Long::longValue).sum());
+            }
+            Assert.assertThrows(IllegalStateException.class, () -> manager.create(new CacherBuilder<Integer, String>().scheduleName("m7")));
+            Assert.assertTrue(manager.unregister(cachers.get(0)));
+            Assert.assertTrue(manager.unregister(cachers.get(1)));
+            Assert.assertEquals(7L, manager.getQuotas().values().stream().mapToLong(Long::longValue).sum());
+            cachers.get(0).shutdownExpireScheduleNow();
+            cachers.get(1).shutdownExpireScheduleNow();
+        }
+    }
+
+    @Test
+    public void testServeStaleOnError() throws InterruptedException {
+        AtomicInteger loadCount = new AtomicInteger();
+        AtomicInteger failing = new AtomicInteger(1);
+        CacherValueLoader<String, String> loader = key -> {
+            loadCount.incrementAndGet();
+            if (failing.get() == 1) {
+                throw new IllegalStateException("backend down");
+            }
+            return key + "-new";
+        };
+        Cacher<String, String> cacher = new CacherBuilder<String, String>()
+                .cacherLoader(null, loader, null)
+                .initialDelay(60_000L)
+                .serveStaleOnError(10_000L, 100L, 1000L)
+                .build();
+        cacher.put("a", "a-old", 20L);
+        Thread.sleep(40);
+        // load 失败，返回过期的值并且不删除
+        Assert.assertEquals("a-old", cacher.get("a"));
+        Assert.assertEquals(1, loadCount.get());
+        // 退避期间不再调用 loader
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("a-old", cacher.get("a"));
+        }
+        Assert.assertEquals(1, loadCount.get());
+        Thread.sleep(120);
+        Assert.assertEquals("a-old", cacher.get("a"));
+        Assert.assertEquals(2, loadCount.get());
+
+        // 恢复后，退避结束的下一次读取拿到新值
+        failing.set(0);
+        Assert.assertEquals("a-old", cacher.get("a"));
+        Thread.sleep(220);
+        Assert.assertEquals("a-new", cacher.get("a"));
+        Assert.assertEquals(3, loadCount.get());
+        cacher.shutdownExpireScheduleNow();
+
+        // 超过 maxStaleness 后恢复原来的行为
+        failing.set(1);
+        Cacher<String, String> strict = new CacherBuilder<String, String>()
+                .cacherLoader(null, loader, null)
+                .initialDelay(60_000L)
+                .serveStaleOnError(20L)
+                .build();
+        strict.put("b", "b-old", 10L);
+        Thread.sleep(50);
+        Assert.assertThrows(IllegalStateException.class, () -> strict.get("b"));
+        Assert.assertFalse(strict.keySet().contains("b"));
+        strict.shutdownExpireScheduleNow();
+
+        // 其他线程正在 load 时直接返回过期的值，只调用一次 loader
+        AtomicInteger slowLoads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Cacher<String, String> slow = new CacherBuilder<String, String>()
+                .cacherLoader(null, key -> {
+                    slowLoads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return key + "-new";
+                })
+                .initialDelay(60_000L)
+                .serveStaleOnError(10_000L)
+                .build();
+        slow.put("c", "c-old", 10L);
+        Thread.sleep(30);
+        AtomicReference<String> reloaded = new AtomicReference<>();
+        Thread reader = new Thread(() -> reloaded.set(slow.get("c")));
+        reader.start();
+        Assert.assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("c-old", slow.get("c"));
+        release.countDown();
+        reader.join();
+        Assert.assertEquals("c-new", reloaded.get());
+        Assert.assertEquals("c-new", slow.get("c"));
+        Assert.assertEquals(1, slowLoads.get());
+
+        // load 期间其他线程写入了相同的值，以其写入为准，不被 load 的结果覆盖
+        CountDownLatch loading2 = new CountDownLatch(1);
+        CountDownLatch release2 = new CountDownLatch(1);
+        Cacher<String, String> racing = new CacherBuilder<String, String>()
+                .cacherLoader(null, key -> {
+                    loading2.countDown();
+                    try {
+                        release2.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return key + "-new";
+                })
+                .initialDelay(60_000L)
+                .serveStaleOnError(10_000L)
+                .build();
+        racing.put("d", "d-old", 10L);
+        Thread.sleep(30);
+        Thread racingReader = new Thread(() -> racing.get("d"));
+        racingReader.start();
+        Assert.assertTrue(loading2.await(5, TimeUnit.SECONDS));
+        racing.set("d", "d-old", 60_000L);
+        release2.countDown();
+        racingReader.join();
+        Assert.assertEquals("d-old", racing.get("d"));
+        slow.shutdownExpireScheduleNow();
+        racing.shutdownExpireScheduleNow();
+
+        // 按访问过期时，返回过期的值不算访问，退避结束后仍会重试 loader
+        failing.set(1);
+        loadCount.set(0);
+        Cacher<String, String> access = new CacherBuilder<String, String>()
+                .cacherLoader(null, loader, null)
+                .initialDelay(60_000L)
+                .serveStaleOnError(10_000L, 100L, 1000L)
+                .build();
+        access.put("e", "e-old", 300L, ExpireWayEnum.AFTER_ACCESS);
+        Thread.sleep(320);
+        Assert.assertEquals("e-old", access.get("e"));
+        Assert.assertEquals(1, loadCount.get());
+        Thread.sleep(120);
+        Assert.assertEquals("e-old", access.get("e"));
+        Assert.assertEquals(2, loadCount.get());
+        failing.set(0);
+        Thread.sleep(220);
+        Assert.assertEquals("e-new", access.get("e"));
+        Assert.assertEquals(3, loadCount.get());
+        access.shutdownExpireScheduleNow();
+    }
 }